@@ -0,0 +1,109 @@
+package com.raycoarana.codeinputview;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+import androidx.test.filters.SdkSuppress;
+import androidx.test.rule.ActivityTestRule;
+import androidx.test.rule.UiThreadTestRule;
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+import static org.junit.Assert.assertEquals;
+
+import android.os.Build.VERSION_CODES;
+import android.view.autofill.AutofillValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+@MediumTest
+@SdkSuppress(minSdkVersion = VERSION_CODES.O)
+public class AutofillTest {
+
+    private static final String CODE = "123456";
+
+    @Rule
+    public ActivityTestRule<AppCompatActivity> mActivityRule = new ActivityTestRule<>(AppCompatActivity.class);
+
+    @Rule
+    public UiThreadTestRule mUiThreadRule = new UiThreadTestRule();
+
+    private CodeInputView mView;
+    private final List<String> mCompletedCodes = new ArrayList<>();
+
+    @Before
+    public void setUpView() throws Throwable {
+        final AppCompatActivity activity = mActivityRule.getActivity();
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView = new CodeInputView(activity);
+                mView.setOnCompleteEventDelay(0);
+                mView.setAnimateOnComplete(false);
+                mView.addOnCompleteListener(new OnCodeCompleteListener() {
+                    @Override
+                    public void onCompleted(String code) {
+                        mCompletedCodes.add(code);
+                    }
+                });
+                activity.setContentView(mView);
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    @Test
+    public void shouldDispatchCompleteOnceWhenAutofilled() throws Throwable {
+        whenAutofilledWith(CODE);
+
+        assertEquals(CODE, mView.getCode());
+        assertEquals(Arrays.asList(CODE), mCompletedCodes);
+    }
+
+    @Test
+    public void shouldReplaceTheTypedCode() throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.setCode("99");
+            }
+        });
+
+        whenAutofilledWith(CODE);
+
+        assertEquals(CODE, mView.getCode());
+        assertEquals(Arrays.asList(CODE), mCompletedCodes);
+    }
+
+    @Test
+    public void shouldIgnoreAutofillWhenNotEditable() throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.setEditable(false);
+            }
+        });
+
+        whenAutofilledWith(CODE);
+
+        assertEquals("", mView.getCode());
+        assertEquals(Collections.<String>emptyList(), mCompletedCodes);
+    }
+
+    private void whenAutofilledWith(final String code) throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.autofill(AutofillValue.forText(code));
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+}
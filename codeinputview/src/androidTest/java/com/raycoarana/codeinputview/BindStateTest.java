@@ -0,0 +1,166 @@
+package com.raycoarana.codeinputview;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+import androidx.test.rule.ActivityTestRule;
+import androidx.test.rule.UiThreadTestRule;
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+import static com.raycoarana.codeinputview.CodeInputViews.draw;
+import static com.raycoarana.codeinputview.CodeInputViews.layOut;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.view.KeyEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+@RunWith(AndroidJUnit4.class)
+@MediumTest
+public class BindStateTest {
+
+    private static final long COMPLETE_EVENT_WAIT = 500;
+
+    @Rule
+    public ActivityTestRule<AppCompatActivity> mActivityRule = new ActivityTestRule<>(AppCompatActivity.class);
+
+    @Rule
+    public UiThreadTestRule mUiThreadRule = new UiThreadTestRule();
+
+    private AppCompatActivity mActivity;
+    private CodeInputView mView;
+    private Bitmap mBoundBitmap;
+    private Bitmap mExpectedBitmap;
+    private final List<String> mCompletedCodes = new ArrayList<>();
+    private final List<Character> mOldListenerDigits = new ArrayList<>();
+    private final List<Character> mNewListenerDigits = new ArrayList<>();
+    private Runnable mPendingErrorLayout;
+
+    @Before
+    public void setUpView() throws Throwable {
+        mActivity = mActivityRule.getActivity();
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView = new CodeInputView(mActivity);
+                mActivity.setContentView(mView);
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    @Test
+    public void shouldSnapAnimationsToTheBoundState() throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                CodeInputView boundView = layOut(new CodeInputView(mActivity));
+                boundView.setError("Other error");
+                boundView.bind(new CodeInputView.BindState().code("12").error("Error"));
+                mBoundBitmap = draw(boundView);
+
+                CodeInputView expectedView = layOut(new CodeInputView(mActivity));
+                expectedView.setAnimateOnComplete(false);
+                expectedView.setCode("12");
+                expectedView.setError("Error");
+                mExpectedBitmap = draw(expectedView);
+            }
+        });
+
+        assertTrue(mExpectedBitmap.sameAs(mBoundBitmap));
+    }
+
+    @Test
+    public void shouldDropPendingCompleteEvent() throws Throwable {
+        final OnCodeCompleteListener listener = new OnCodeCompleteListener() {
+            @Override
+            public void onCompleted(String code) {
+                mCompletedCodes.add(code);
+            }
+        };
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.setCode("12345");
+                typeDigit('6');
+                mView.bind(new CodeInputView.BindState().addOnCompleteListener(listener));
+            }
+        });
+
+        Thread.sleep(COMPLETE_EVENT_WAIT);
+        getInstrumentation().waitForIdleSync();
+
+        assertTrue(mCompletedCodes.isEmpty());
+    }
+
+    @Test
+    public void shouldDropPendingAsyncError() throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.setErrorAsync("Error", new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        mPendingErrorLayout = command;
+                    }
+                });
+                mView.bind(new CodeInputView.BindState());
+            }
+        });
+
+        mPendingErrorLayout.run();
+        getInstrumentation().waitForIdleSync();
+
+        assertNull(mView.getError());
+    }
+
+    @Test
+    public void shouldReplaceListeners() throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.addOnDigitInputListener(new RecordingDigitListener(mOldListenerDigits));
+                mView.bind(new CodeInputView.BindState()
+                        .code("1")
+                        .addOnDigitInputListener(new RecordingDigitListener(mNewListenerDigits)));
+                typeDigit('2');
+            }
+        });
+
+        assertTrue(mOldListenerDigits.isEmpty());
+        assertEquals(1, mNewListenerDigits.size());
+        assertEquals('2', (char) mNewListenerDigits.get(0));
+        assertEquals("12", mView.getCode());
+    }
+
+    private void typeDigit(char digit) {
+        int keyCode = KeyEvent.KEYCODE_0 + (digit - '0');
+        mView.onKeyUp(keyCode, new KeyEvent(KeyEvent.ACTION_UP, keyCode));
+    }
+
+    private static class RecordingDigitListener implements OnDigitInputListener {
+        private final List<Character> mDigits;
+
+        RecordingDigitListener(List<Character> digits) {
+            mDigits = digits;
+        }
+
+        @Override
+        public void onInput(char inputDigit) {
+            mDigits.add(inputDigit);
+        }
+
+        @Override
+        public void onDelete() {
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.raycoarana.codeinputview;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.rule.UiThreadTestRule;
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.view.inputmethod.BaseInputConnection;
+import android.view.inputmethod.EditorInfo;
+import android.view.inputmethod.ExtractedTextRequest;
+import android.view.inputmethod.InputConnection;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class CodeInputConnectionTest {
+
+    @Rule
+    public UiThreadTestRule mUiThreadRule = new UiThreadTestRule();
+
+    private CodeInputView mView;
+    private InputConnection mConnection;
+
+    @Before
+    public void setUpConnection() {
+        mView = new CodeInputView(getInstrumentation().getTargetContext());
+        mConnection = mView.onCreateInputConnection(new EditorInfo());
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldCommitOnlyValidCharacters() {
+        mConnection.commitText("1a2-3", 1);
+
+        assertEquals("123", mView.getCode());
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldReplaceComposingText() {
+        mConnection.setComposingText("12", 1);
+        mConnection.setComposingText("134", 1);
+        mConnection.commitText("1345", 1);
+
+        assertEquals("1345", mView.getCode());
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldDeleteCharactersBeforeCursor() {
+        mView.setCode("1234");
+
+        assertTrue(mConnection.deleteSurroundingText(2, 0));
+
+        assertEquals("12", mView.getCode());
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldNotDeleteWithoutCharactersBeforeCursor() {
+        mView.setCode("1234");
+
+        assertTrue(mConnection.deleteSurroundingText(0, 1));
+
+        assertEquals("1234", mView.getCode());
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldOnlyAcceptCursorAtTheEnd() {
+        mView.setCode("1234");
+
+        assertTrue(mConnection.setSelection(4, 4));
+        assertFalse(mConnection.setSelection(1, 1));
+        assertEquals("1234", mView.getCode());
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldNotExposeAnEditable() {
+        assertNull(((BaseInputConnection) mConnection).getEditable());
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldExtractCode() {
+        mView.setCode("12");
+
+        CharSequence text = mConnection.getExtractedText(new ExtractedTextRequest(), InputConnection.GET_EXTRACTED_TEXT_MONITOR).text;
+
+        assertEquals("12", text.toString());
+    }
+}
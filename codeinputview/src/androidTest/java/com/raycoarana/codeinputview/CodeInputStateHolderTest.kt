@@ -0,0 +1,88 @@
+package com.raycoarana.codeinputview
+
+import android.view.KeyEvent
+import androidx.appcompat.app.AppCompatActivity
+import androidx.test.platform.app.InstrumentationRegistry.getInstrumentation
+import androidx.test.rule.ActivityTestRule
+import androidx.test.rule.UiThreadTestRule
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeoutOrNull
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+
+@ExperimentalCoroutinesApi
+class CodeInputStateHolderTest {
+
+    @get:Rule
+    var activityRule = ActivityTestRule(AppCompatActivity::class.java)
+
+    @get:Rule
+    var uiThreadRule = UiThreadTestRule()
+
+    private lateinit var view: CodeInputView
+    private val holder = CodeInputStateHolder()
+
+    @Before
+    fun setUpView() {
+        uiThreadRule.runOnUiThread {
+            view = CodeInputView(activityRule.activity)
+            view.setOnCompleteEventDelay(0)
+            view.setAnimateOnComplete(false)
+            activityRule.activity.setContentView(view)
+            holder.attach(view)
+        }
+    }
+
+    @Test
+    fun mirrorStateOfAttachedView() {
+        uiThreadRule.runOnUiThread {
+            view.code = "12"
+            view.error = "Error"
+            view.setEditable(false)
+        }
+
+        assertEquals(CodeInputState("12", "Error", false), holder.state.value)
+    }
+
+    @Test
+    fun stopMirroringStateWhenDetached() {
+        uiThreadRule.runOnUiThread {
+            view.code = "12"
+            holder.detach()
+            view.code = "34"
+        }
+
+        assertEquals("12", holder.state.value.code)
+    }
+
+    @Test
+    fun deliverEveryCompletedCodeOnce() {
+        whenCodeIsCompleted("12345", '6')
+        whenCodeIsCompleted("65432", '1')
+
+        runBlocking {
+            assertEquals("123456", holder.completedCodes.first())
+            assertEquals("654321", holder.completedCodes.first())
+            assertNull(withTimeoutOrNull(NO_MORE_CODES_TIMEOUT) { holder.completedCodes.first() })
+        }
+    }
+
+    private fun whenCodeIsCompleted(code: String, lastDigit: Char) {
+        uiThreadRule.runOnUiThread {
+            view.setEditable(true)
+            view.code = code
+            val keyCode = KeyEvent.KEYCODE_0 + (lastDigit - '0')
+            view.onKeyUp(keyCode, KeyEvent(KeyEvent.ACTION_UP, keyCode))
+        }
+        getInstrumentation().waitForIdleSync()
+    }
+
+    companion object {
+        private const val NO_MORE_CODES_TIMEOUT = 100L
+    }
+}
@@ -0,0 +1,75 @@
+package com.raycoarana.codeinputview;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.rule.UiThreadTestRule;
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+import static com.raycoarana.codeinputview.CodeInputViews.draw;
+import static com.raycoarana.codeinputview.CodeInputViews.layOut;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.util.TypedValue;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class CodeInputStyleTest {
+
+    @Rule
+    public UiThreadTestRule mUiThreadRule = new UiThreadTestRule();
+
+    private Context mContext;
+
+    @Before
+    public void setUpContext() {
+        mContext = getInstrumentation().getTargetContext();
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldShareStyleBetweenViewsWithSameAttributes() {
+        assertSame(CodeInputStyle.obtain(mContext, null, 0), CodeInputStyle.obtain(mContext, null, 0));
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldNotChangeSiblingViewWhenChangingPaints() {
+        CodeInputView changedView = givenALaidOutView();
+        CodeInputView siblingView = givenALaidOutView();
+        siblingView.setError("Error");
+        Bitmap before = draw(siblingView);
+
+        changedView.setTextColor(Color.RED);
+        changedView.setUnderlineColor(Color.BLUE);
+        changedView.setUnderlineSelectedColor(Color.GREEN);
+        changedView.setErrorTextColor(Color.MAGENTA);
+        changedView.setTextSize(TypedValue.COMPLEX_UNIT_SP, 40);
+        changedView.setErrorTextSize(TypedValue.COMPLEX_UNIT_SP, 30);
+        changedView.setError("Error");
+
+        assertTrue(before.sameAs(draw(siblingView)));
+        CodeInputStyle style = CodeInputStyle.obtain(mContext, null, 0);
+        assertEquals(style.textColor, style.textPaint.getColor());
+        assertEquals(style.underlineColor, style.underlinePaint.getColor());
+        assertEquals(style.underlineSelectedColor, style.underlineSelectedPaint.getColor());
+        assertEquals(style.errorTextColor, style.getErrorTextPaint().getColor());
+        assertEquals(style.errorTextSize, style.getErrorTextPaint().getTextSize(), 0f);
+    }
+
+    private CodeInputView givenALaidOutView() {
+        CodeInputView view = new CodeInputView(mContext);
+        view.setAnimateOnComplete(false);
+        view.setCode("123");
+        return layOut(view);
+    }
+}
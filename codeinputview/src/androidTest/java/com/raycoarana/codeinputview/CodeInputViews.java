@@ -0,0 +1,30 @@
+package com.raycoarana.codeinputview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View.MeasureSpec;
+
+/**
+ * Lays out and draws a CodeInputView without attaching it to a window
+ */
+class CodeInputViews {
+
+    static final int WIDTH = 600;
+
+    static CodeInputView layOut(CodeInputView view) {
+        view.measure(MeasureSpec.makeMeasureSpec(WIDTH, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+        return view;
+    }
+
+    /**
+     * Lays out the view again, as its height could have changed, and draws it in a new bitmap
+     */
+    static Bitmap draw(CodeInputView view) {
+        layOut(view);
+        Bitmap bitmap = Bitmap.createBitmap(view.getWidth(), view.getHeight(), Bitmap.Config.ARGB_8888);
+        view.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+}
@@ -0,0 +1,334 @@
+package com.raycoarana.codeinputview;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+import androidx.test.rule.ActivityTestRule;
+import androidx.test.rule.UiThreadTestRule;
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.view.KeyEvent;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+@RunWith(AndroidJUnit4.class)
+@MediumTest
+public class CodeValidationTest {
+
+    private static final String CODE = "123456";
+    private static final String REJECTION = "Wrong code";
+    private static final long TIMEOUT = 100;
+
+    @Rule
+    public ActivityTestRule<AppCompatActivity> mActivityRule = new ActivityTestRule<>(AppCompatActivity.class);
+
+    @Rule
+    public UiThreadTestRule mUiThreadRule = new UiThreadTestRule();
+
+    private AppCompatActivity mActivity;
+    private CodeInputView mView;
+    private String mValidationResult;
+    private int mValidatorCalls;
+    private final List<Runnable> mPendingValidations = new ArrayList<>();
+    private final List<String> mValidatedEvents = new ArrayList<>();
+    private final List<String> mCompletedCodes = new ArrayList<>();
+
+    private final Executor mDirectExecutor = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            command.run();
+        }
+    };
+
+    private final Executor mDeferredExecutor = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            mPendingValidations.add(command);
+        }
+    };
+
+    private final CodeValidator mValidator = new CodeValidator() {
+        @Override
+        public String validate(@NonNull String code) throws Exception {
+            mValidatorCalls++;
+            return mValidationResult;
+        }
+    };
+
+    @Before
+    public void setUpView() throws Throwable {
+        mActivity = mActivityRule.getActivity();
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView = new CodeInputView(mActivity);
+                mView.setOnCompleteEventDelay(0);
+                mView.setAnimateOnComplete(false);
+                mView.addOnCompleteListener(new OnCodeCompleteListener() {
+                    @Override
+                    public void onCompleted(String code) {
+                        mCompletedCodes.add(code);
+                    }
+                });
+                mView.setOnCodeValidatedListener(new OnCodeValidatedListener() {
+                    @Override
+                    public void onValid(String code) {
+                        mValidatedEvents.add("valid:" + code);
+                    }
+
+                    @Override
+                    public void onInvalid(String code, String errorMessage) {
+                        mValidatedEvents.add("invalid:" + code + ":" + errorMessage);
+                    }
+                });
+                mActivity.setContentView(mView);
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    @Test
+    public void shouldStopEditingWhenCodeIsValid() throws Throwable {
+        givenAValidatorWith(mDirectExecutor);
+
+        whenCodeIsCompleted();
+
+        assertEquals(Arrays.asList("valid:" + CODE), mValidatedEvents);
+        assertFalse(mView.isEditable());
+        assertFalse(mView.isValidating());
+        assertNull(mView.getError());
+    }
+
+    @Test
+    public void shouldShowErrorAndKeepEditingWhenCodeIsRejected() throws Throwable {
+        mValidationResult = REJECTION;
+        givenAValidatorWith(mDirectExecutor);
+
+        whenCodeIsCompleted();
+
+        assertEquals(Arrays.asList("invalid:" + CODE + ":" + REJECTION), mValidatedEvents);
+        assertEquals(REJECTION, mView.getError());
+        assertTrue(mView.isEditable());
+    }
+
+    @Test
+    public void shouldShowValidationFailedMessageWhenValidatorFails() throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.setCodeValidator(new CodeValidator() {
+                    @Override
+                    public String validate(@NonNull String code) throws Exception {
+                        throw new Exception("Validator failure");
+                    }
+                }, mDirectExecutor);
+            }
+        });
+
+        whenCodeIsCompleted();
+
+        assertEquals(mActivity.getString(R.string.validation_failed), mView.getError());
+        assertTrue(mView.isEditable());
+    }
+
+    @Test
+    public void shouldNotBeEditableWhileValidating() throws Throwable {
+        givenAValidatorWith(mDeferredExecutor);
+
+        whenCodeIsCompleted();
+
+        assertTrue(mView.isValidating());
+        assertFalse(mView.isEditable());
+        assertEquals(1, mPendingValidations.size());
+    }
+
+    @Test
+    public void shouldCancelValidationWhenCodeIsEdited() throws Throwable {
+        givenAValidatorWith(mDeferredExecutor);
+        whenCodeIsCompleted();
+
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.setEditable(true);
+                mView.onKeyDown(KeyEvent.KEYCODE_DEL, new KeyEvent(KeyEvent.ACTION_DOWN, KeyEvent.KEYCODE_DEL));
+            }
+        });
+        whenPendingValidationsRun();
+
+        assertFalse(mView.isValidating());
+        assertTrue(((Future<?>) mPendingValidations.get(0)).isCancelled());
+        assertTrue(mValidatedEvents.isEmpty());
+    }
+
+    @Test
+    public void shouldCancelValidationWhenViewIsDetached() throws Throwable {
+        givenAValidatorWith(mDeferredExecutor);
+        whenCodeIsCompleted();
+
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mActivity.setContentView(new View(mActivity));
+            }
+        });
+        whenPendingValidationsRun();
+
+        assertFalse(mView.isValidating());
+        assertTrue(((Future<?>) mPendingValidations.get(0)).isCancelled());
+        assertTrue(mValidatedEvents.isEmpty());
+    }
+
+    @Test
+    public void shouldFailValidationOnTimeout() throws Throwable {
+        givenAValidatorWith(mDeferredExecutor);
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.setValidationTimeout(TIMEOUT);
+            }
+        });
+        whenCodeIsCompleted();
+
+        Thread.sleep(TIMEOUT * 3);
+        getInstrumentation().waitForIdleSync();
+
+        String message = mActivity.getString(R.string.validation_failed);
+        assertEquals(message, mView.getError());
+        assertEquals(Arrays.asList("invalid:" + CODE + ":" + message), mValidatedEvents);
+        assertFalse(mView.isValidating());
+        assertTrue(((Future<?>) mPendingValidations.get(0)).isCancelled());
+    }
+
+    @Test
+    public void shouldNotValidateCachedRejectionAgain() throws Throwable {
+        mValidationResult = REJECTION;
+        givenAValidatorWith(mDirectExecutor);
+        givenAValidationCache();
+        whenCodeIsCompleted();
+
+        whenLastDigitIsTypedAgain();
+
+        assertEquals(1, mValidatorCalls);
+        assertEquals(Arrays.asList(CODE), mCompletedCodes);
+        assertEquals(REJECTION, mView.getError());
+        assertTrue(mView.isEditable());
+        assertEquals(2, mValidatedEvents.size());
+    }
+
+    @Test
+    public void shouldKeepValidatingForTheCacheWhenCodeIsEdited() throws Throwable {
+        mValidationResult = REJECTION;
+        givenAValidatorWith(mDeferredExecutor);
+        givenAValidationCache();
+        whenCodeIsCompleted();
+
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.setCode(CODE.substring(0, CODE.length() - 1));
+            }
+        });
+        assertFalse(mView.isValidating());
+        whenPendingValidationsRun();
+        assertFalse(((Future<?>) mPendingValidations.get(0)).isCancelled());
+        assertTrue(mValidatedEvents.isEmpty());
+
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                typeLastDigit();
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+
+        assertEquals(1, mValidatorCalls);
+        assertEquals(REJECTION, mView.getError());
+        assertEquals(Arrays.asList("invalid:" + CODE + ":" + REJECTION), mValidatedEvents);
+    }
+
+    @Test
+    public void shouldWaitForRunningValidationOfSameCode() throws Throwable {
+        mValidationResult = REJECTION;
+        givenAValidatorWith(mDeferredExecutor);
+        givenAValidationCache();
+        whenCodeIsCompleted();
+
+        whenLastDigitIsTypedAgain();
+        assertTrue(mView.isValidating());
+        whenPendingValidationsRun();
+
+        assertEquals(1, mPendingValidations.size());
+        assertEquals(1, mValidatorCalls);
+        assertEquals(REJECTION, mView.getError());
+        assertEquals(Arrays.asList("invalid:" + CODE + ":" + REJECTION), mValidatedEvents);
+    }
+
+    private void givenAValidatorWith(final Executor executor) throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.setCodeValidator(mValidator, executor);
+            }
+        });
+    }
+
+    private void givenAValidationCache() throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.setValidationCache(10, 60000);
+            }
+        });
+    }
+
+    private void whenCodeIsCompleted() throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.setCode(CODE.substring(0, CODE.length() - 1));
+                typeLastDigit();
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    private void whenLastDigitIsTypedAgain() throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.setEditable(true);
+                mView.onKeyDown(KeyEvent.KEYCODE_DEL, new KeyEvent(KeyEvent.ACTION_DOWN, KeyEvent.KEYCODE_DEL));
+                typeLastDigit();
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    private void whenPendingValidationsRun() {
+        for (Runnable validation : mPendingValidations) {
+            validation.run();
+        }
+        getInstrumentation().waitForIdleSync();
+    }
+
+    private void typeLastDigit() {
+        int keyCode = KeyEvent.KEYCODE_0 + (CODE.charAt(CODE.length() - 1) - '0');
+        mView.onKeyUp(keyCode, new KeyEvent(KeyEvent.ACTION_UP, keyCode));
+    }
+}
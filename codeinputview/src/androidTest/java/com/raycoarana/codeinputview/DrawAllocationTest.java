@@ -0,0 +1,81 @@
+package com.raycoarana.codeinputview;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.filters.SmallTest;
+import androidx.test.rule.UiThreadTestRule;
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+import static org.junit.Assert.assertEquals;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.view.View.MeasureSpec;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class DrawAllocationTest {
+
+    private static final int DRAW_ITERATIONS = 100;
+    private static final int MAX_SIZE = 2000;
+
+    @Rule
+    public UiThreadTestRule mUiThreadRule = new UiThreadTestRule();
+
+    private CodeInputView mView;
+    private Canvas mCanvas;
+
+    @Before
+    public void setUpView() {
+        mView = new CodeInputView(getInstrumentation().getTargetContext());
+        mView.measure(MeasureSpec.makeMeasureSpec(MAX_SIZE, MeasureSpec.AT_MOST),
+                MeasureSpec.makeMeasureSpec(MAX_SIZE, MeasureSpec.AT_MOST));
+        mView.layout(0, 0, mView.getMeasuredWidth(), mView.getMeasuredHeight());
+        mCanvas = new Canvas(Bitmap.createBitmap(mView.getWidth(), mView.getHeight(), Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldNotAllocateWhenDrawingCode() {
+        mView.setCode("1234");
+
+        assertEquals(0, countAllocationsWhileDrawing());
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldNotAllocateWhenDrawingCodeInPasswordMode() {
+        mView.setInPasswordMode(true);
+        mView.setShowPasswordWhileTyping(true);
+        mView.setCode("1234");
+
+        assertEquals(0, countAllocationsWhileDrawing());
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldNotAllocateWhenDrawingError() {
+        mView.setCode("123456");
+        mView.setError("Incorrect code");
+
+        assertEquals(0, countAllocationsWhileDrawing());
+    }
+
+    @SuppressWarnings("deprecation")
+    private int countAllocationsWhileDrawing() {
+        mView.onDraw(mCanvas);
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (int i = 0; i < DRAW_ITERATIONS; i++) {
+            mView.onDraw(mCanvas);
+        }
+        Debug.stopAllocCounting();
+        return Debug.getThreadAllocCount();
+    }
+}
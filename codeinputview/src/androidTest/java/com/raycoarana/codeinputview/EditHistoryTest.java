@@ -0,0 +1,215 @@
+package com.raycoarana.codeinputview;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.rule.UiThreadTestRule;
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.view.KeyEvent;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class EditHistoryTest {
+
+    private static final int LENGTH_OF_CODE = 4;
+
+    @Rule
+    public UiThreadTestRule mUiThreadRule = new UiThreadTestRule();
+
+    private final StringBuilder mCode = new StringBuilder();
+    private EditHistory mHistory;
+
+    @Before
+    public void setUpHistory() {
+        mHistory = new EditHistory(new EditHistory.Target() {
+            @Override
+            public CharSequence getCode() {
+                return mCode;
+            }
+
+            @Override
+            public void insertCharacter(char character) {
+                mCode.append(character);
+            }
+
+            @Override
+            public void deleteCharacter() {
+                mCode.setLength(mCode.length() - 1);
+            }
+
+            @Override
+            public void replaceCode(char[] code, int length) {
+                mCode.setLength(0);
+                mCode.append(code, 0, length);
+            }
+        });
+        mHistory.setCodeLength(LENGTH_OF_CODE);
+    }
+
+    @Test
+    public void shouldUndoAndRedoInsertDeleteAndReplace() {
+        givenThatCharacterIsInserted('1');
+        givenThatCharacterIsInserted('2');
+        givenThatLastCharacterIsDeleted();
+        givenThatCodeIsReplacedWith("987");
+
+        assertUndoLeaves("1");
+        assertUndoLeaves("12");
+        assertUndoLeaves("1");
+        assertUndoLeaves("");
+        assertFalse(mHistory.canUndo());
+        assertFalse(mHistory.undo());
+
+        assertRedoLeaves("1");
+        assertRedoLeaves("12");
+        assertRedoLeaves("1");
+        assertRedoLeaves("987");
+        assertFalse(mHistory.canRedo());
+        assertFalse(mHistory.redo());
+    }
+
+    @Test
+    public void shouldKeepNewestEditsWhenHistoryIsFull() {
+        mCode.append("00");
+        int replaces = 30;
+        for (int i = 1; i <= replaces; i++) {
+            givenThatCodeIsReplacedWith(twoDigits(i));
+        }
+
+        // Each replace of a two characters code takes three values of the history, so the
+        // oldest ones are discarded whole, never leaving one of them incomplete
+        int kept = (LENGTH_OF_CODE + 1) * 16 / 3;
+        for (int i = replaces - 1; i >= replaces - kept; i--) {
+            assertUndoLeaves(twoDigits(i));
+        }
+        assertFalse(mHistory.undo());
+        assertFalse(mHistory.canUndo());
+        assertEquals(twoDigits(replaces - kept), mCode.toString());
+    }
+
+    @Test
+    public void shouldDiscardRedoOnNewEdit() {
+        givenThatCharacterIsInserted('1');
+        givenThatCharacterIsInserted('2');
+        mHistory.undo();
+        assertTrue(mHistory.canRedo());
+
+        givenThatCharacterIsInserted('3');
+
+        assertFalse(mHistory.canRedo());
+        assertFalse(mHistory.redo());
+        assertEquals("13", mCode.toString());
+        assertUndoLeaves("1");
+    }
+
+    @Test
+    public void shouldClearHistoryWhenChangingLength() {
+        givenThatCharacterIsInserted('1');
+        givenThatCharacterIsInserted('2');
+        mHistory.undo();
+
+        mHistory.setCodeLength(LENGTH_OF_CODE + 2);
+
+        assertFalse(mHistory.canUndo());
+        assertFalse(mHistory.canRedo());
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldClearHistoryOfViewWhenChangingLengthOfCode() {
+        CodeInputView view = new CodeInputView(getInstrumentation().getTargetContext());
+        view.setCode("12");
+        assertTrue(view.canUndo());
+
+        view.setLengthOfCode(4);
+
+        assertFalse(view.canUndo());
+        assertFalse(view.undo());
+        assertEquals("12", view.getCode());
+    }
+
+    @Test
+    public void shouldDiscardOldestEditsWholeWhenReplacesAndCharactersAreMixed() {
+        mCode.append("12");
+        givenThatCodeIsReplacedWith("9876");
+        int pairs = 37;
+        for (int i = 0; i < pairs; i++) {
+            givenThatCharacterIsInserted('1');
+            givenThatLastCharacterIsDeleted();
+        }
+        givenThatCodeIsReplacedWith("55");
+
+        // Replaces take 3 and 5 values and every pair 2, 82 values that do not fit in 80, so
+        // the first replace is discarded with all its characters
+        int undone = 0;
+        while (mHistory.undo()) {
+            undone++;
+        }
+        assertEquals(2 * pairs + 1, undone);
+        assertEquals("9876", mCode.toString());
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldNotCompleteCodeWhenUndoRestoresItsLength() {
+        CodeInputView view = new CodeInputView(getInstrumentation().getTargetContext());
+        view.setLengthOfCode(LENGTH_OF_CODE);
+        typeKeys(view, KeyEvent.KEYCODE_1, KeyEvent.KEYCODE_2, KeyEvent.KEYCODE_3, KeyEvent.KEYCODE_4);
+        assertFalse(view.isEditable());
+        view.setEditable(true);
+        view.onKeyDown(KeyEvent.KEYCODE_DEL, new KeyEvent(KeyEvent.ACTION_DOWN, KeyEvent.KEYCODE_DEL));
+
+        assertTrue(view.undo());
+
+        assertEquals("1234", view.getCode());
+        assertTrue(view.isEditable());
+        assertTrue(view.redo());
+        assertEquals("123", view.getCode());
+    }
+
+    private static void typeKeys(CodeInputView view, int... keyCodes) {
+        for (int keyCode : keyCodes) {
+            view.onKeyUp(keyCode, new KeyEvent(KeyEvent.ACTION_UP, keyCode));
+        }
+    }
+
+    private void givenThatCharacterIsInserted(char character) {
+        mCode.append(character);
+        mHistory.recordInsert(character);
+    }
+
+    private void givenThatLastCharacterIsDeleted() {
+        char character = mCode.charAt(mCode.length() - 1);
+        mCode.setLength(mCode.length() - 1);
+        mHistory.recordDelete(character);
+    }
+
+    private void givenThatCodeIsReplacedWith(String code) {
+        mHistory.recordReplace(mCode);
+        mCode.setLength(0);
+        mCode.append(code);
+    }
+
+    private void assertUndoLeaves(String code) {
+        assertTrue(mHistory.undo());
+        assertEquals(code, mCode.toString());
+    }
+
+    private void assertRedoLeaves(String code) {
+        assertTrue(mHistory.redo());
+        assertEquals(code, mCode.toString());
+    }
+
+    private static String twoDigits(int value) {
+        return String.valueOf((char) ('0' + value / 10)) + (char) ('0' + value % 10);
+    }
+}
@@ -0,0 +1,123 @@
+package com.raycoarana.codeinputview;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+import androidx.test.rule.ActivityTestRule;
+import androidx.test.rule.UiThreadTestRule;
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.util.TypedValue;
+import android.view.Gravity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+@MediumTest
+public class EditorTest {
+
+    @Rule
+    public ActivityTestRule<AppCompatActivity> mActivityRule = new ActivityTestRule<>(AppCompatActivity.class);
+
+    @Rule
+    public UiThreadTestRule mUiThreadRule = new UiThreadTestRule();
+
+    private LayoutCountingView mView;
+    private final List<String> mChanges = new ArrayList<>();
+
+    @Before
+    public void setUpView() throws Throwable {
+        final AppCompatActivity activity = mActivityRule.getActivity();
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView = new LayoutCountingView(activity);
+                mView.setCode("123456");
+                mView.addOnCodeChangeListener(new OnCodeChangeListener() {
+                    @Override
+                    public void onCodeChanged(CharSequence code, int start, int before, int count) {
+                        mChanges.add(start + "," + before + "," + count + ":" + code);
+                    }
+                });
+                activity.setContentView(mView);
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+        mView.mLayoutCount = 0;
+    }
+
+    @Test
+    public void shouldApplyAllChangesInASingleLayoutPass() throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.edit()
+                        .textSize(TypedValue.COMPLEX_UNIT_SP, 30)
+                        .errorTextSize(TypedValue.COMPLEX_UNIT_SP, 20)
+                        .textMarginBottom(TypedValue.COMPLEX_UNIT_DIP, 8)
+                        .gravity(Gravity.CENTER)
+                        .lengthOfCode(4)
+                        .apply();
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+
+        assertEquals(1, mView.mLayoutCount);
+        assertEquals(Gravity.CENTER, mView.getGravity());
+        assertEquals(4, mView.getLengthOfCode());
+    }
+
+    @Test
+    public void shouldTruncateCodeAndNotifyListeners() throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.edit()
+                        .textSize(TypedValue.COMPLEX_UNIT_SP, 30)
+                        .lengthOfCode(4)
+                        .apply();
+            }
+        });
+
+        assertEquals("1234", mView.getCode());
+        assertEquals(Arrays.asList("4,2,0:1234"), mChanges);
+    }
+
+    @Test
+    public void shouldNotNotifyListenersWhenCodeFits() throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.edit()
+                        .lengthOfCode(8)
+                        .apply();
+            }
+        });
+
+        assertEquals("123456", mView.getCode());
+        assertEquals(0, mChanges.size());
+    }
+
+    private static class LayoutCountingView extends CodeInputView {
+        int mLayoutCount;
+
+        LayoutCountingView(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+            super.onLayout(changed, left, top, right, bottom);
+            mLayoutCount++;
+        }
+    }
+}
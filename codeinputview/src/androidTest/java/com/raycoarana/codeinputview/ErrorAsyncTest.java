@@ -0,0 +1,126 @@
+package com.raycoarana.codeinputview;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+import androidx.test.rule.ActivityTestRule;
+import androidx.test.rule.UiThreadTestRule;
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+import static com.raycoarana.codeinputview.CodeInputViews.layOut;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+@RunWith(AndroidJUnit4.class)
+@MediumTest
+public class ErrorAsyncTest {
+
+    private static final String FIRST_ERROR = "First error";
+    private static final String SECOND_ERROR = "Second error";
+
+    @Rule
+    public ActivityTestRule<AppCompatActivity> mActivityRule = new ActivityTestRule<>(AppCompatActivity.class);
+
+    @Rule
+    public UiThreadTestRule mUiThreadRule = new UiThreadTestRule();
+
+    private CodeInputView mView;
+    private final List<Runnable> mPendingLayouts = new ArrayList<>();
+
+    private final Executor mDeferredExecutor = new Executor() {
+        @Override
+        public void execute(@NonNull Runnable command) {
+            mPendingLayouts.add(command);
+        }
+    };
+
+    @Before
+    public void setUpView() throws Throwable {
+        final AppCompatActivity activity = mActivityRule.getActivity();
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView = new CodeInputView(activity);
+                activity.setContentView(mView);
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+    }
+
+    @Test
+    public void shouldShowErrorOnceItIsLaidOut() throws Throwable {
+        whenErrorIsSetAsync(FIRST_ERROR);
+        assertNull(mView.getError());
+
+        whenPendingLayoutsRun(0);
+
+        assertEquals(FIRST_ERROR, mView.getError());
+    }
+
+    @Test
+    public void shouldDiscardPendingErrorWhenErrorIsSet() throws Throwable {
+        whenErrorIsSetAsync(FIRST_ERROR);
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.setError(SECOND_ERROR);
+            }
+        });
+
+        whenPendingLayoutsRun(0);
+
+        assertEquals(SECOND_ERROR, mView.getError());
+    }
+
+    @Test
+    public void shouldShowLastAsyncErrorWhenLayoutsFinishOutOfOrder() throws Throwable {
+        whenErrorIsSetAsync(FIRST_ERROR);
+        whenErrorIsSetAsync(SECOND_ERROR);
+
+        whenPendingLayoutsRun(1);
+        whenPendingLayoutsRun(0);
+
+        assertEquals(SECOND_ERROR, mView.getError());
+    }
+
+    @Test
+    public void shouldPrewarmMessagesOnceTheViewIsLaidOut() throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                CodeInputView view = new CodeInputView(mActivityRule.getActivity());
+                view.prewarmErrorMessages(mDeferredExecutor, FIRST_ERROR, SECOND_ERROR);
+                assertEquals(0, mPendingLayouts.size());
+
+                layOut(view);
+                assertEquals(1, mPendingLayouts.size());
+
+                layOut(view);
+                assertEquals(1, mPendingLayouts.size());
+            }
+        });
+    }
+
+    private void whenErrorIsSetAsync(final String errorMessage) throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView.setErrorAsync(errorMessage, mDeferredExecutor);
+            }
+        });
+    }
+
+    private void whenPendingLayoutsRun(int index) {
+        mPendingLayouts.get(index).run();
+        getInstrumentation().waitForIdleSync();
+    }
+}
@@ -0,0 +1,75 @@
+package com.raycoarana.codeinputview;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.raycoarana.codeinputview.text.InputAlphabet;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class InputAlphabetTest {
+
+    @Test
+    public void shouldFoldDigitsOfOtherScripts() {
+        assertEquals('1', InputAlphabet.numeric().normalize('\uFF11'));
+        assertEquals('3', InputAlphabet.numeric().normalize('\u0663'));
+        assertEquals(InputAlphabet.NONE, InputAlphabet.numeric().normalize('a'));
+        assertEquals("0123456789", InputAlphabet.numeric().getCharacters());
+    }
+
+    @Test
+    public void shouldFoldCaseOfHexDigits() {
+        assertEquals('A', InputAlphabet.hex().normalize('a'));
+        assertEquals('F', InputAlphabet.hex().normalize('F'));
+        assertEquals(InputAlphabet.NONE, InputAlphabet.hex().normalize('g'));
+    }
+
+    @Test
+    public void shouldBuildPresetsFromRangesAsTheyAreScanned() {
+        InputAlphabet numeric = new InputAlphabet.Builder()
+                .addRange('0', '9')
+                .foldDigits()
+                .build();
+        InputAlphabet hex = new InputAlphabet.Builder()
+                .addRange('0', '9')
+                .addRange('A', 'F')
+                .foldDigits()
+                .foldCase()
+                .build();
+
+        for (int character = 0; character <= Character.MAX_VALUE; character++) {
+            assertEquals(numeric.normalize((char) character), InputAlphabet.numeric().normalize((char) character));
+            assertEquals(hex.normalize((char) character), InputAlphabet.hex().normalize((char) character));
+        }
+        assertEquals("0123456789ABCDEF", InputAlphabet.hex().getCharacters());
+    }
+
+    @Test
+    public void shouldReadAmbiguousCrockfordCharacters() {
+        assertEquals('1', InputAlphabet.crockfordBase32().normalize('i'));
+        assertEquals('1', InputAlphabet.crockfordBase32().normalize('L'));
+        assertEquals('0', InputAlphabet.crockfordBase32().normalize('o'));
+        assertEquals(InputAlphabet.NONE, InputAlphabet.crockfordBase32().normalize('U'));
+    }
+
+    @Test
+    public void shouldBuildCustomAlphabet() {
+        InputAlphabet alphabet = new InputAlphabet.Builder()
+                .addRange('A', 'Z')
+                .foldCase()
+                .build();
+
+        assertTrue(alphabet.isAccepted('q'));
+        assertEquals('Q', alphabet.normalize('q'));
+        assertFalse(alphabet.isAccepted('1'));
+        assertFalse(alphabet.isAccepted(InputAlphabet.NONE));
+        assertNull(InputAlphabet.letterOrDigit().getCharacters());
+    }
+}
@@ -0,0 +1,103 @@
+package com.raycoarana.codeinputview;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+import androidx.test.rule.UiThreadTestRule;
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+import static com.raycoarana.codeinputview.CodeInputViews.draw;
+import static com.raycoarana.codeinputview.CodeInputViews.layOut;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.util.TypedValue;
+import android.view.KeyEvent;
+
+@RunWith(AndroidJUnit4.class)
+@MediumTest
+public class InvalidationTest {
+
+    @Rule
+    public UiThreadTestRule mUiThreadRule = new UiThreadTestRule();
+
+    private DirtyRectView mView;
+
+    @Before
+    public void setUpView() throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mView = new DirtyRectView(getInstrumentation().getTargetContext());
+                // Glyphs wider than their section overflow into the previous one
+                mView.setTextSize(TypedValue.COMPLEX_UNIT_PX, 3 * CodeInputViews.WIDTH / 6);
+                mView.setCode("12");
+                layOut(mView);
+            }
+        });
+    }
+
+    @Test
+    public void shouldInvalidateEveryPixelChangedByATypedCharacter() throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                Bitmap before = draw(mView);
+                mView.resetDirtyRect();
+
+                mView.onKeyUp(KeyEvent.KEYCODE_8, new KeyEvent(KeyEvent.ACTION_UP, KeyEvent.KEYCODE_8));
+                Bitmap after = draw(mView);
+
+                assertFalse(mView.mIsFullyInvalidated);
+                Rect changed = getChangedPixels(before, after);
+                assertFalse(changed.isEmpty());
+                assertTrue("Changed " + changed + " outside of " + mView.mDirtyRect, mView.mDirtyRect.contains(changed));
+            }
+        });
+    }
+
+    private static Rect getChangedPixels(Bitmap before, Bitmap after) {
+        Rect changed = new Rect();
+        for (int y = 0; y < before.getHeight(); y++) {
+            for (int x = 0; x < before.getWidth(); x++) {
+                if (before.getPixel(x, y) != after.getPixel(x, y)) {
+                    changed.union(x, y, x + 1, y + 1);
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static class DirtyRectView extends CodeInputView {
+        final Rect mDirtyRect = new Rect();
+        boolean mIsFullyInvalidated;
+
+        DirtyRectView(Context context) {
+            super(context);
+        }
+
+        void resetDirtyRect() {
+            mDirtyRect.setEmpty();
+            mIsFullyInvalidated = false;
+        }
+
+        @Override
+        public void invalidate() {
+            super.invalidate();
+            mIsFullyInvalidated = true;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public void invalidate(int l, int t, int r, int b) {
+            super.invalidate(l, t, r, b);
+            mDirtyRect.union(l, t, r, b);
+        }
+    }
+}
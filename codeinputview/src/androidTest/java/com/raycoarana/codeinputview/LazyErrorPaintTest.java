@@ -0,0 +1,85 @@
+package com.raycoarana.codeinputview;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.rule.UiThreadTestRule;
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+import static com.raycoarana.codeinputview.CodeInputViews.draw;
+import static com.raycoarana.codeinputview.CodeInputViews.layOut;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.util.TypedValue;
+
+/**
+ * The error paint is only created when the first error is shown, so the error text values set
+ * before it must reach the paint once it is created
+ */
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class LazyErrorPaintTest {
+
+    private static final String ERROR = "Wrong code";
+
+    @Rule
+    public UiThreadTestRule mUiThreadRule = new UiThreadTestRule();
+
+    private Context mContext;
+
+    @Before
+    public void setUpContext() {
+        mContext = getInstrumentation().getTargetContext();
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldDrawErrorWithColorSetBeforeFirstError() {
+        CodeInputView view = givenALaidOutView();
+        view.setErrorTextSize(TypedValue.COMPLEX_UNIT_PX, 60);
+        assertFalse(hasPixelOf(draw(view), Color.MAGENTA));
+
+        view.setErrorTextColor(Color.MAGENTA);
+        view.setError(ERROR);
+
+        assertTrue(hasPixelOf(draw(view), Color.MAGENTA));
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldMeasureErrorWithSizeSetBeforeFirstError() {
+        CodeInputView defaultView = givenALaidOutView();
+        CodeInputView biggerView = givenALaidOutView();
+        biggerView.setErrorTextSize(TypedValue.COMPLEX_UNIT_PX, biggerView.getErrorTextSize() * 3);
+
+        defaultView.setError(ERROR);
+        biggerView.setError(ERROR);
+
+        assertTrue(layOut(biggerView).getHeight() > layOut(defaultView).getHeight());
+    }
+
+    private CodeInputView givenALaidOutView() {
+        CodeInputView view = new CodeInputView(mContext);
+        view.setAnimateOnComplete(false);
+        return layOut(view);
+    }
+
+    private static boolean hasPixelOf(Bitmap bitmap, int color) {
+        for (int y = 0; y < bitmap.getHeight(); y++) {
+            for (int x = 0; x < bitmap.getWidth(); x++) {
+                if (bitmap.getPixel(x, y) == color) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
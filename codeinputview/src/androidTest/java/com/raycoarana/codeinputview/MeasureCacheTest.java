@@ -0,0 +1,89 @@
+package com.raycoarana.codeinputview;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.filters.SmallTest;
+import androidx.test.rule.UiThreadTestRule;
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Debug;
+import android.util.TypedValue;
+import android.view.View.MeasureSpec;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class MeasureCacheTest {
+
+    private static final int LAYOUT_ITERATIONS = 100;
+    private static final int WIDTH_SPEC = MeasureSpec.makeMeasureSpec(600, MeasureSpec.EXACTLY);
+    private static final int HEIGHT_SPEC = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+    private static final String LONG_ERROR = "This is a test of long error text that should expand over several " +
+            "lines of errors and the view should layout it correctly";
+
+    @Rule
+    public UiThreadTestRule mUiThreadRule = new UiThreadTestRule();
+
+    private CodeInputView mView;
+
+    @Before
+    public void setUpView() {
+        mView = new CodeInputView(getInstrumentation().getTargetContext());
+        mView.setError(LONG_ERROR);
+        measureAndLayout();
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldNotAllocateWhenLayingOutAgainWithoutChanges() {
+        assertEquals(0, countAllocationsWhileLayingOut());
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldMeasureAgainWhenTextSizeChanges() {
+        int height = mView.getMeasuredHeight();
+
+        mView.setTextSize(TypedValue.COMPLEX_UNIT_PX, mView.getTextSize() * 2);
+        measureAndLayout();
+
+        assertTrue(mView.getMeasuredHeight() > height);
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldMeasureAgainWhenErrorIsCleared() {
+        int height = mView.getMeasuredHeight();
+
+        mView.setError((String) null);
+        measureAndLayout();
+
+        assertTrue(mView.getMeasuredHeight() < height);
+    }
+
+    private void measureAndLayout() {
+        // Parents force the layout of their children, so the view measures itself every time
+        mView.forceLayout();
+        mView.measure(WIDTH_SPEC, HEIGHT_SPEC);
+        mView.layout(0, 0, mView.getMeasuredWidth(), mView.getMeasuredHeight());
+    }
+
+    @SuppressWarnings("deprecation")
+    private int countAllocationsWhileLayingOut() {
+        measureAndLayout();
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (int i = 0; i < LAYOUT_ITERATIONS; i++) {
+            measureAndLayout();
+        }
+        Debug.stopAllocCounting();
+        return Debug.getThreadAllocCount();
+    }
+}
@@ -0,0 +1,108 @@
+package com.raycoarana.codeinputview;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.rule.UiThreadTestRule;
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+import static org.junit.Assert.assertEquals;
+
+import android.view.KeyEvent;
+import android.view.inputmethod.EditorInfo;
+import android.view.inputmethod.InputConnection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class OnCodeChangeListenerTest {
+
+    @Rule
+    public UiThreadTestRule mUiThreadRule = new UiThreadTestRule();
+
+    private CodeInputView mView;
+    private final List<String> mChanges = new ArrayList<>();
+
+    @Before
+    public void setUpView() {
+        mView = new CodeInputView(getInstrumentation().getTargetContext());
+        mView.addOnCodeChangeListener(new OnCodeChangeListener() {
+            @Override
+            public void onCodeChanged(CharSequence code, int start, int before, int count) {
+                mChanges.add(start + "," + before + "," + count + ":" + code);
+            }
+        });
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldNotifyAppendedCharacter() {
+        mView.setCode("1");
+        mChanges.clear();
+
+        mView.onKeyUp(KeyEvent.KEYCODE_2, new KeyEvent(KeyEvent.ACTION_UP, KeyEvent.KEYCODE_2));
+
+        assertEquals(Arrays.asList("1,0,1:12"), mChanges);
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldNotifyDeletedCharacter() {
+        mView.setCode("123");
+        mChanges.clear();
+
+        mView.onKeyDown(KeyEvent.KEYCODE_DEL, new KeyEvent(KeyEvent.ACTION_DOWN, KeyEvent.KEYCODE_DEL));
+
+        assertEquals(Arrays.asList("2,1,0:12"), mChanges);
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldNotifyReplacedCode() {
+        mView.setCode("345");
+
+        mView.setCode("12");
+
+        assertEquals(Arrays.asList("0,0,3:345", "0,3,2:12"), mChanges);
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldNotifyOnlyChangedCharactersOfComposingText() {
+        InputConnection connection = mView.onCreateInputConnection(new EditorInfo());
+
+        connection.setComposingText("12", 1);
+        connection.setComposingText("134", 1);
+
+        assertEquals(Arrays.asList("0,0,2:12", "1,1,2:134"), mChanges);
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldNotifyTruncatedCode() {
+        mView.setCode("1234");
+        mChanges.clear();
+
+        mView.setLengthOfCode(2);
+
+        assertEquals(Arrays.asList("2,2,0:12"), mChanges);
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldNotNotifyWhenLengthChangeKeepsCode() {
+        mView.setCode("12");
+        mChanges.clear();
+
+        mView.setLengthOfCode(4);
+
+        assertEquals(0, mChanges.size());
+    }
+}
@@ -0,0 +1,121 @@
+package com.raycoarana.codeinputview;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class PasswordRevealSchedulerTest {
+
+    private static final long DURATION_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private CallbackRecordingView mView;
+    private PasswordRevealScheduler mScheduler;
+    private final List<Integer> mMaskedSections = new ArrayList<>();
+
+    @Before
+    public void setUpScheduler() {
+        mView = new CallbackRecordingView(getInstrumentation().getTargetContext());
+        mScheduler = new PasswordRevealScheduler(mView, new PasswordRevealScheduler.OnSectionMaskedListener() {
+            @Override
+            public void onSectionMasked(int position) {
+                mMaskedSections.add(position);
+            }
+        });
+        mScheduler.setCount(4);
+    }
+
+    @Test
+    public void shouldRevealSectionUntilItsDeadline() {
+        long now = System.nanoTime();
+        mScheduler.reveal(2, DURATION_NANOS);
+
+        assertTrue(mScheduler.isRevealed(2, now));
+        assertFalse(mScheduler.isRevealed(2, now + 2 * DURATION_NANOS));
+        assertFalse(mScheduler.isRevealed(1, now));
+        assertEquals(1, mView.mPendingCallbacks);
+        assertTrue(mView.mLastDelayMillis <= TimeUnit.NANOSECONDS.toMillis(DURATION_NANOS) + 1);
+    }
+
+    @Test
+    public void shouldMaskPreviousSectionWhenRevealingAnother() {
+        mScheduler.reveal(0, DURATION_NANOS);
+        mScheduler.reveal(1, DURATION_NANOS);
+
+        assertEquals(Arrays.asList(0), mMaskedSections);
+        assertFalse(mScheduler.isRevealed(0, System.nanoTime()));
+        assertEquals(1, mView.mPendingCallbacks);
+    }
+
+    @Test
+    public void shouldMaskSectionsWhoseDeadlinePassed() {
+        mScheduler.reveal(3, 0);
+
+        mScheduler.run();
+
+        assertEquals(Arrays.asList(3), mMaskedSections);
+        assertEquals(1, mView.mPostedCallbacks);
+    }
+
+    @Test
+    public void shouldKeepWaitingForSectionsNotExpired() {
+        mScheduler.reveal(3, DURATION_NANOS);
+
+        mScheduler.run();
+
+        assertEquals(0, mMaskedSections.size());
+        assertTrue(mScheduler.isRevealed(3, System.nanoTime()));
+        assertEquals(2, mView.mPostedCallbacks);
+    }
+
+    @Test
+    public void shouldClearWithoutNotifying() {
+        mScheduler.reveal(1, DURATION_NANOS);
+
+        mScheduler.clear();
+
+        assertEquals(0, mMaskedSections.size());
+        assertFalse(mScheduler.isRevealed(1, System.nanoTime()));
+        assertEquals(0, mView.mPendingCallbacks);
+    }
+
+    private static class CallbackRecordingView extends View {
+        int mPendingCallbacks;
+        int mPostedCallbacks;
+        long mLastDelayMillis;
+
+        CallbackRecordingView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public boolean postDelayed(Runnable action, long delayMillis) {
+            mPendingCallbacks++;
+            mPostedCallbacks++;
+            mLastDelayMillis = delayMillis;
+            return true;
+        }
+
+        @Override
+        public boolean removeCallbacks(Runnable action) {
+            mPendingCallbacks = 0;
+            return true;
+        }
+    }
+}
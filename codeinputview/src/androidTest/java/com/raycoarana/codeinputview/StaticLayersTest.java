@@ -0,0 +1,35 @@
+package com.raycoarana.codeinputview;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.rule.UiThreadTestRule;
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+import static org.junit.Assert.assertEquals;
+
+import android.view.View;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class StaticLayersTest {
+
+    @Rule
+    public UiThreadTestRule mUiThreadRule = new UiThreadTestRule();
+
+    @Test
+    @UiThreadTest
+    public void shouldNotChangeLayerTypeOfTheView() {
+        CodeInputView view = new CodeInputView(getInstrumentation().getTargetContext());
+        view.setLayerType(View.LAYER_TYPE_SOFTWARE, null);
+
+        view.setStaticLayersCacheEnabled(true);
+        assertEquals(View.LAYER_TYPE_SOFTWARE, view.getLayerType());
+
+        view.setStaticLayersCacheEnabled(false);
+        assertEquals(View.LAYER_TYPE_SOFTWARE, view.getLayerType());
+    }
+}
@@ -0,0 +1,68 @@
+package com.raycoarana.codeinputview;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class ValidationCacheTest {
+
+    private static final long TIME_TO_LIVE = 60000;
+
+    @Test
+    public void shouldReturnRejectionUntilItExpires() {
+        ValidationCache<Object> cache = new ValidationCache<>(2, TIME_TO_LIVE);
+        ValidationCache<Object> expiredCache = new ValidationCache<>(2, 0);
+
+        cache.putRejection("1234", "Wrong");
+        expiredCache.putRejection("1234", "Wrong");
+
+        assertEquals("Wrong", cache.getRejection("1234"));
+        assertNull(expiredCache.getRejection("1234"));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedRejection() {
+        ValidationCache<Object> cache = new ValidationCache<>(2, TIME_TO_LIVE);
+        cache.putRejection("1111", "First");
+        cache.putRejection("2222", "Second");
+        cache.getRejection("1111");
+
+        cache.putRejection("3333", "Third");
+
+        assertEquals("First", cache.getRejection("1111"));
+        assertNull(cache.getRejection("2222"));
+        assertEquals("Third", cache.getRejection("3333"));
+    }
+
+    @Test
+    public void shouldOnlyRemoveSameInFlightValidation() {
+        ValidationCache<Object> cache = new ValidationCache<>(2, TIME_TO_LIVE);
+        Object validation = new Object();
+        cache.putInFlight("1234", validation);
+
+        cache.removeInFlight("1234", new Object());
+        assertSame(validation, cache.getInFlight("1234"));
+
+        cache.removeInFlight("1234", validation);
+        assertNull(cache.getInFlight("1234"));
+    }
+
+    @Test
+    public void shouldClearRejectionsAndValidations() {
+        ValidationCache<Object> cache = new ValidationCache<>(2, TIME_TO_LIVE);
+        cache.putRejection("1234", "Wrong");
+        cache.putInFlight("5678", new Object());
+
+        cache.clear();
+
+        assertNull(cache.getRejection("1234"));
+        assertNull(cache.getInFlight("5678"));
+    }
+}
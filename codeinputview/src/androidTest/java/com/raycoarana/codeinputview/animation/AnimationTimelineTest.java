@@ -0,0 +1,128 @@
+package com.raycoarana.codeinputview.animation;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+import androidx.test.rule.UiThreadTestRule;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+@MediumTest
+public class AnimationTimelineTest {
+
+    private static final long DURATION = 100;
+    private static final long TIMEOUT = 2000;
+    private static final float DELTA = 0.0001f;
+
+    @Rule
+    public UiThreadTestRule mUiThreadRule = new UiThreadTestRule();
+
+    private AnimationTimeline mTimeline;
+    private AnimationTimeline.Track mTrack;
+    private AnimationTimeline.Track mIdleTrack;
+    private final CountDownLatch mFinished = new CountDownLatch(1);
+    private int mFrames;
+    private float mMaxFraction;
+    private boolean mIsIdleTrackUpdated;
+    private boolean mReverseOnFirstFrame;
+
+    @Before
+    public void setUpTimeline() throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mTimeline = new AnimationTimeline(new AnimationTimeline.Listener() {
+                    @Override
+                    public void onTimelineFrame(@NonNull AnimationTimeline timeline) {
+                        mFrames++;
+                        mMaxFraction = Math.max(mMaxFraction, mTrack.getFraction());
+                        mIsIdleTrackUpdated |= mIdleTrack.isUpdated();
+                        if (mReverseOnFirstFrame && mFrames == 2) {
+                            mTrack.reverse();
+                        }
+                        if (!mTrack.isRunning()) {
+                            mFinished.countDown();
+                        }
+                    }
+                });
+                mTrack = mTimeline.newTrack(DURATION);
+                mIdleTrack = mTimeline.newTrack(DURATION);
+            }
+        });
+    }
+
+    @Test
+    public void shouldPlayTrackToTheEnd() throws Throwable {
+        whenTrackIs(new Runnable() {
+            @Override
+            public void run() {
+                mTrack.start();
+            }
+        });
+
+        assertEquals(1, mTrack.getFraction(), DELTA);
+        assertEquals(1, mTrack.getInterpolatedFraction(), DELTA);
+        assertTrue(mTrack.isUpdated());
+        assertTrue(mFrames > 1);
+        assertFalse(mIsIdleTrackUpdated);
+    }
+
+    @Test
+    public void shouldPlayTrackBackwardsFromTheEnd() throws Throwable {
+        whenTrackIs(new Runnable() {
+            @Override
+            public void run() {
+                mTrack.reverse();
+            }
+        });
+
+        assertEquals(0, mTrack.getFraction(), DELTA);
+        assertEquals(0, mTrack.getInterpolatedFraction(), DELTA);
+        assertFalse(mTrack.isRunning());
+    }
+
+    @Test
+    public void shouldTurnBackFromTheCurrentFraction() throws Throwable {
+        mReverseOnFirstFrame = true;
+
+        whenTrackIs(new Runnable() {
+            @Override
+            public void run() {
+                mTrack.start();
+            }
+        });
+
+        assertEquals(0, mTrack.getFraction(), DELTA);
+        assertTrue(mMaxFraction < 1);
+    }
+
+    @Test
+    public void shouldSnapWithoutRunning() throws Throwable {
+        mUiThreadRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                mTrack.start();
+                mTrack.snapTo(1);
+
+                assertFalse(mTrack.isRunning());
+                assertFalse(mTrack.isUpdated());
+                assertEquals(1, mTrack.getFraction(), DELTA);
+            }
+        });
+    }
+
+    private void whenTrackIs(Runnable action) throws Throwable {
+        mUiThreadRule.runOnUiThread(action);
+        assertTrue(mFinished.await(TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+}
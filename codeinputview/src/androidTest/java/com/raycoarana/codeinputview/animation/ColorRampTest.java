@@ -0,0 +1,50 @@
+package com.raycoarana.codeinputview.animation;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import static org.junit.Assert.assertEquals;
+
+import android.graphics.Color;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class ColorRampTest {
+
+    private static final int FROM_COLOR = 0x80102030;
+    private static final int TO_COLOR = 0xFFF0E0D0;
+
+    private final ColorRamp mRamp = new ColorRamp(FROM_COLOR, TO_COLOR);
+
+    @Test
+    public void shouldStartAndEndAtTheExactColors() {
+        assertEquals(FROM_COLOR, mRamp.getColor(0));
+        assertEquals(TO_COLOR, mRamp.getColor(1));
+    }
+
+    @Test
+    public void shouldClampFractionsOutOfRange() {
+        assertEquals(FROM_COLOR, mRamp.getColor(-0.5f));
+        assertEquals(TO_COLOR, mRamp.getColor(1.5f));
+    }
+
+    @Test
+    public void shouldBlendEveryChannelHalfway() {
+        int color = mRamp.getColor(0.5f);
+
+        assertEquals(0xC0, Color.alpha(color));
+        assertEquals(0x80, Color.red(color));
+        assertEquals(0x80, Color.green(color));
+        assertEquals(0x80, Color.blue(color));
+    }
+
+    @Test
+    public void shouldUseNewColorsWhenUpdated() {
+        mRamp.update(Color.BLACK, Color.WHITE);
+
+        assertEquals(Color.BLACK, mRamp.getColor(0));
+        assertEquals(Color.WHITE, mRamp.getColor(1));
+    }
+}
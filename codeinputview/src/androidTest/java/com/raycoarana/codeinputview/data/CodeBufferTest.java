@@ -0,0 +1,128 @@
+package com.raycoarana.codeinputview.data;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.annotation.UiThreadTest;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.rule.UiThreadTestRule;
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.raycoarana.codeinputview.CodeInputView;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class CodeBufferTest {
+
+    @Rule
+    public UiThreadTestRule mUiThreadRule = new UiThreadTestRule();
+
+    private CodeBuffer mBuffer;
+
+    @Before
+    public void setUpBuffer() {
+        mBuffer = new CodeBuffer();
+        mBuffer.setCapacity(4);
+    }
+
+    @Test
+    public void shouldKeepCodeWhenSettingLongerCode() {
+        mBuffer.set("12");
+
+        assertFalse(mBuffer.set("12345"));
+        assertFalse(mBuffer.set("12345".toCharArray(), 5));
+
+        assertEquals("12", mBuffer.toString());
+    }
+
+    @Test
+    public void shouldRejectAppendWhenFull() {
+        mBuffer.set("1234");
+
+        assertTrue(mBuffer.isFull());
+        assertFalse(mBuffer.append('5'));
+        assertEquals("1234", mBuffer.toString());
+    }
+
+    @Test
+    public void shouldDiscardLastCharactersWhenShrinking() {
+        mBuffer.set("1234");
+
+        mBuffer.setCapacity(2);
+
+        assertEquals(2, mBuffer.length());
+        assertEquals("12", mBuffer.toString());
+        assertTrue(mBuffer.isFull());
+    }
+
+    @Test
+    public void shouldKeepCodeWhenGrowing() {
+        mBuffer.set("1234");
+
+        mBuffer.setCapacity(6);
+
+        assertEquals("1234", mBuffer.toString());
+        assertTrue(mBuffer.append('5'));
+    }
+
+    @Test
+    public void shouldCacheStringUntilNextChange() {
+        mBuffer.set("12");
+        String value = mBuffer.toString();
+
+        assertSame(value, mBuffer.toString());
+
+        mBuffer.append('3');
+
+        assertEquals("123", mBuffer.toString());
+    }
+
+    @Test
+    public void shouldReturnSubSequence() {
+        mBuffer.set("1234");
+
+        assertEquals("23", mBuffer.subSequence(1, 3).toString());
+        assertEquals("", mBuffer.subSequence(4, 4).toString());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldFailSubSequenceAfterLength() {
+        mBuffer.set("12");
+
+        mBuffer.subSequence(1, 3);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldFailSubSequenceWithNegativeStart() {
+        mBuffer.set("12");
+
+        mBuffer.subSequence(-1, 1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldFailCharAtAfterLength() {
+        mBuffer.set("12");
+
+        mBuffer.charAt(2);
+    }
+
+    @Test
+    @UiThreadTest
+    public void shouldCopyCodeOfView() {
+        CodeInputView view = new CodeInputView(getInstrumentation().getTargetContext());
+        view.setCode("123");
+        char[] dest = new char[view.getLengthOfCode()];
+
+        int length = view.getCode(dest);
+
+        assertEquals(3, length);
+        assertEquals("123", new String(dest, 0, length));
+    }
+}
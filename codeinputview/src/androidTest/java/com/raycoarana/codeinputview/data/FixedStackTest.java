@@ -0,0 +1,103 @@
+package com.raycoarana.codeinputview.data;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class FixedStackTest {
+
+	private FixedStack mStack;
+
+	@Before
+	public void setUpStack() {
+		mStack = new FixedStack();
+		mStack.setMaxSize(3);
+	}
+
+	@Test
+	public void shouldPopInReverseOrder() {
+		mStack.push(1);
+		mStack.push(2);
+		mStack.push(3);
+
+		assertEquals(3, mStack.peek());
+		assertEquals(3, mStack.pop());
+		assertEquals(2, mStack.pop());
+		assertEquals(1, mStack.pop());
+		assertTrue(mStack.isEmpty());
+	}
+
+	@Test
+	public void shouldDiscardOldestValueWhenFull() {
+		for (int i = 1; i <= 5; i++) {
+			mStack.push(i);
+		}
+
+		assertEquals(3, mStack.size());
+		assertEquals(5, mStack.pop());
+		assertEquals(4, mStack.pop());
+		assertEquals(3, mStack.pop());
+		assertTrue(mStack.isEmpty());
+	}
+
+	@Test
+	public void shouldReuseSpaceAfterPop() {
+		mStack.push(1);
+		mStack.push(2);
+		mStack.push(3);
+		mStack.pop();
+		mStack.push(4);
+		mStack.push(5);
+
+		assertEquals(5, mStack.pop());
+		assertEquals(4, mStack.pop());
+		assertEquals(2, mStack.pop());
+		assertTrue(mStack.isEmpty());
+	}
+
+	@Test
+	public void shouldRemoveOldestValueFromBottom() {
+		for (int i = 1; i <= 4; i++) {
+			mStack.push(i);
+		}
+
+		assertEquals(2, mStack.removeBottom());
+		assertEquals(2, mStack.size());
+		mStack.push(5);
+		assertEquals(5, mStack.pop());
+		assertEquals(4, mStack.pop());
+		assertEquals(3, mStack.pop());
+		assertTrue(mStack.isEmpty());
+	}
+
+	@Test
+	public void shouldClearWhenChangingMaxSize() {
+		mStack.push(1);
+
+		mStack.setMaxSize(5);
+
+		assertTrue(mStack.isEmpty());
+		assertEquals(5, mStack.getMaxSize());
+	}
+
+	@Test
+	public void shouldIgnorePushWithoutSize() {
+		mStack.setMaxSize(0);
+
+		mStack.push(1);
+
+		assertTrue(mStack.isEmpty());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void shouldFailToPopEmptyStack() {
+		mStack.pop();
+	}
+}
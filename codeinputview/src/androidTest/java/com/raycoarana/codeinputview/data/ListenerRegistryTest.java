@@ -0,0 +1,94 @@
+package com.raycoarana.codeinputview.data;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class ListenerRegistryTest {
+
+    private final ListenerRegistry<Listener> mRegistry = new ListenerRegistry<>(new Listener[0]);
+    private final List<String> mCalls = new ArrayList<>();
+
+    @Test
+    public void shouldNotifyAllListenersWhenOneIsRemovedDuringDispatch() {
+        final Listener second = new RecordingListener("second");
+        mRegistry.add(new RecordingListener("first") {
+            @Override
+            public void onEvent(int event) {
+                super.onEvent(event);
+                mRegistry.remove(second);
+            }
+        });
+        mRegistry.add(second);
+
+        dispatch(1);
+        dispatch(2);
+
+        assertEquals(Arrays.asList("first:1", "second:1", "first:2"), mCalls);
+        assertEquals(1, mRegistry.getListeners().length);
+    }
+
+    @Test
+    public void shouldNotNotifyListenerAddedDuringDispatchUntilNextEvent() {
+        final Listener added = new RecordingListener("added");
+        mRegistry.add(new RecordingListener("first") {
+            @Override
+            public void onEvent(int event) {
+                super.onEvent(event);
+                if (event == 1) {
+                    mRegistry.add(added);
+                }
+            }
+        });
+
+        dispatch(1);
+        dispatch(2);
+
+        assertEquals(Arrays.asList("first:1", "first:2", "added:2"), mCalls);
+    }
+
+    @Test
+    public void shouldReplaceListeners() {
+        mRegistry.add(new RecordingListener("old"));
+
+        mRegistry.set(Arrays.<Listener>asList(new RecordingListener("new")));
+        dispatch(1);
+        mRegistry.clear();
+        dispatch(2);
+
+        assertEquals(Arrays.asList("new:1"), mCalls);
+    }
+
+    private void dispatch(int event) {
+        Listener[] listeners = mRegistry.getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onEvent(event);
+        }
+    }
+
+    private interface Listener {
+        void onEvent(int event);
+    }
+
+    private class RecordingListener implements Listener {
+        private final String mName;
+
+        RecordingListener(String name) {
+            mName = name;
+        }
+
+        @Override
+        public void onEvent(int event) {
+            mCalls.add(mName + ":" + event);
+        }
+    }
+}
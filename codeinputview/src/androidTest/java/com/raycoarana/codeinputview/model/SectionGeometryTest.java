@@ -0,0 +1,82 @@
+package com.raycoarana.codeinputview.model;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class SectionGeometryTest {
+
+    private static final float DELTA = 0.0001f;
+
+    private SectionGeometry mGeometry;
+
+    @Before
+    public void setUpGeometry() {
+        mGeometry = new SectionGeometry();
+        mGeometry.setCount(3);
+        mGeometry.layout(10, 50, 20);
+    }
+
+    @Test
+    public void shouldPlaceSectionsNextToEachOther() {
+        assertEquals(10, mGeometry.getFromX(0), DELTA);
+        assertEquals(30, mGeometry.getToX(0), DELTA);
+        assertEquals(30, mGeometry.getFromX(1), DELTA);
+        assertEquals(70, mGeometry.getToX(2), DELTA);
+        assertEquals(40, mGeometry.getCenterX(1), DELTA);
+        assertEquals(50, mGeometry.getY(), DELTA);
+    }
+
+    @Test
+    public void shouldBatchAllSectionsReduced() {
+        int count = mGeometry.buildLines(2, -1);
+
+        assertEquals(12, count);
+        assertLine(0, 12, 28);
+        assertLine(1, 32, 48);
+        assertLine(2, 52, 68);
+    }
+
+    @Test
+    public void shouldLeaveSkippedSectionOutOfTheBatch() {
+        int count = mGeometry.buildLines(0, 1);
+
+        assertEquals(8, count);
+        assertLine(0, 10, 30);
+        assertLine(1, 50, 70);
+    }
+
+    @Test
+    public void shouldReuseBuffersWhenSectionsDoNotGrow() {
+        float[] lines = mGeometry.getLines();
+
+        mGeometry.setCount(2);
+        mGeometry.setCount(3);
+
+        assertSame(lines, mGeometry.getLines());
+        assertEquals(3, mGeometry.getCount());
+    }
+
+    @Test
+    public void shouldHaveNoLinesWithoutSections() {
+        mGeometry.setCount(0);
+
+        assertEquals(0, mGeometry.buildLines(0, -1));
+        assertEquals(0, mGeometry.getY(), DELTA);
+    }
+
+    private void assertLine(int line, float fromX, float toX) {
+        float[] lines = mGeometry.getLines();
+        assertEquals(fromX, lines[line * 4], DELTA);
+        assertEquals(50, lines[line * 4 + 1], DELTA);
+        assertEquals(toX, lines[line * 4 + 2], DELTA);
+        assertEquals(50, lines[line * 4 + 3], DELTA);
+    }
+}
@@ -0,0 +1,75 @@
+package com.raycoarana.codeinputview.render;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SdkSuppress;
+import androidx.test.filters.SmallTest;
+import static org.junit.Assert.assertEquals;
+
+import android.graphics.Canvas;
+import android.graphics.RecordingCanvas;
+import android.graphics.RenderNode;
+import android.os.Build.VERSION_CODES;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+@SdkSuppress(minSdkVersion = VERSION_CODES.Q)
+public class CachedLayerTest {
+
+    private static final int WIDTH = 100;
+    private static final int HEIGHT = 50;
+
+    private final CachedLayer mLayer = new CachedLayer("test");
+    private int mRecordCount;
+
+    private final CachedLayer.Recorder mRecorder = new CachedLayer.Recorder() {
+        @Override
+        public void record(@NonNull Canvas canvas) {
+            mRecordCount++;
+        }
+    };
+
+    @Test
+    public void shouldRecordOnlyOnceUntilInvalidated() {
+        draw(WIDTH, HEIGHT);
+        draw(WIDTH, HEIGHT);
+        assertEquals(1, mRecordCount);
+
+        mLayer.invalidate();
+        draw(WIDTH, HEIGHT);
+
+        assertEquals(2, mRecordCount);
+    }
+
+    @Test
+    public void shouldRecordAgainWhenSizeChanges() {
+        draw(WIDTH, HEIGHT);
+
+        draw(WIDTH * 2, HEIGHT);
+
+        assertEquals(2, mRecordCount);
+    }
+
+    @Test
+    public void shouldRecordAgainAfterRelease() {
+        draw(WIDTH, HEIGHT);
+
+        mLayer.release();
+        draw(WIDTH, HEIGHT);
+
+        assertEquals(2, mRecordCount);
+    }
+
+    private void draw(int width, int height) {
+        RenderNode parent = new RenderNode("parent");
+        RecordingCanvas canvas = parent.beginRecording(width, height);
+        try {
+            mLayer.draw(canvas, width, height, mRecorder);
+        } finally {
+            parent.endRecording();
+        }
+    }
+}
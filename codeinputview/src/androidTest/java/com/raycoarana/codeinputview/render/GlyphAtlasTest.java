@@ -0,0 +1,103 @@
+package com.raycoarana.codeinputview.render;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class GlyphAtlasTest {
+
+    private static final char[] GLYPHS = "0123456789".toCharArray();
+    private static final int WIDTH = 80;
+    private static final int HEIGHT = 80;
+    private static final int BASELINE_Y = 60;
+
+    private Context mContext;
+    private Paint mTextPaint;
+
+    @Before
+    public void setUp() {
+        mContext = getInstrumentation().getTargetContext();
+        mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mTextPaint.setTextAlign(Paint.Align.CENTER);
+        mTextPaint.setTextSize(48);
+        mTextPaint.setColor(Color.BLACK);
+    }
+
+    @After
+    public void releaseAtlases() {
+        GlyphAtlas.trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+    }
+
+    @Test
+    public void shouldDrawTheSamePixelsAsDrawText() {
+        GlyphAtlas atlas = GlyphAtlas.obtain(mContext, mTextPaint, GLYPHS);
+
+        for (char glyph : GLYPHS) {
+            Bitmap fromAtlas = newBitmap();
+            assertTrue(atlas.draw(new Canvas(fromAtlas), glyph, WIDTH / 2, BASELINE_Y));
+            Bitmap fromText = newBitmap();
+            new Canvas(fromText).drawText(new char[] { glyph }, 0, 1, WIDTH / 2, BASELINE_Y, mTextPaint);
+
+            assertTrue("Glyph " + glyph + " differs from drawText", fromAtlas.sameAs(fromText));
+        }
+    }
+
+    @Test
+    public void shouldSnapFractionalPositionsToWholePixels() {
+        GlyphAtlas atlas = GlyphAtlas.obtain(mContext, mTextPaint, GLYPHS);
+
+        Bitmap fromFractional = newBitmap();
+        atlas.draw(new Canvas(fromFractional), '8', WIDTH / 2 + 0.3f, BASELINE_Y - 0.3f);
+        Bitmap fromWhole = newBitmap();
+        atlas.draw(new Canvas(fromWhole), '8', WIDTH / 2, BASELINE_Y);
+
+        assertTrue(fromFractional.sameAs(fromWhole));
+    }
+
+    @Test
+    public void shouldNotDrawCharactersOutsideTheAtlas() {
+        GlyphAtlas atlas = GlyphAtlas.obtain(mContext, mTextPaint, GLYPHS);
+
+        assertFalse(atlas.draw(new Canvas(newBitmap()), 'A', WIDTH / 2, BASELINE_Y));
+    }
+
+    @Test
+    public void shouldShareAtlasesWithTheSameConfiguration() {
+        GlyphAtlas atlas = GlyphAtlas.obtain(mContext, mTextPaint, GLYPHS);
+
+        assertSame(atlas, GlyphAtlas.obtain(mContext, new Paint(mTextPaint), GLYPHS.clone()));
+    }
+
+    @Test
+    public void shouldRecycleAtlasesWhenMemoryIsTrimmed() {
+        GlyphAtlas atlas = GlyphAtlas.obtain(mContext, mTextPaint, GLYPHS);
+
+        GlyphAtlas.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+        assertTrue(atlas.isRecycled());
+        assertFalse(atlas.draw(new Canvas(newBitmap()), '0', WIDTH / 2, BASELINE_Y));
+        assertNotSame(atlas, GlyphAtlas.obtain(mContext, mTextPaint, GLYPHS));
+    }
+
+    private static Bitmap newBitmap() {
+        return Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+    }
+}
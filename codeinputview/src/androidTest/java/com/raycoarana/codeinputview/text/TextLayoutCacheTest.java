@@ -0,0 +1,69 @@
+package com.raycoarana.codeinputview.text;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.text.Layout.Alignment;
+import android.text.StaticLayout;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class TextLayoutCacheTest {
+
+    private static final String MESSAGE = "Text layout cache test message";
+    private static final int WIDTH = 300;
+
+    private Paint mPaint;
+
+    @Before
+    public void setUpPaint() {
+        mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mPaint.setTextSize(24);
+    }
+
+    @Test
+    public void shouldShareLayoutOfTheSameText() {
+        StaticLayout layout = TextLayoutCache.obtain(MESSAGE, mPaint, WIDTH, Alignment.ALIGN_NORMAL);
+
+        assertSame(layout, TextLayoutCache.obtain(new StringBuilder(MESSAGE), new Paint(mPaint), WIDTH, Alignment.ALIGN_NORMAL));
+        assertEquals(MESSAGE, layout.getText().toString());
+        assertEquals(WIDTH, layout.getWidth());
+    }
+
+    @Test
+    public void shouldShareLayoutWhenOnlyColorChanges() {
+        StaticLayout layout = TextLayoutCache.obtain(MESSAGE, mPaint, WIDTH, Alignment.ALIGN_NORMAL);
+
+        mPaint.setColor(Color.RED);
+
+        assertSame(layout, TextLayoutCache.obtain(MESSAGE, mPaint, WIDTH, Alignment.ALIGN_NORMAL));
+    }
+
+    @Test
+    public void shouldBuildNewLayoutWhenMeasuresChange() {
+        StaticLayout layout = TextLayoutCache.obtain(MESSAGE, mPaint, WIDTH, Alignment.ALIGN_NORMAL);
+
+        assertNotSame(layout, TextLayoutCache.obtain(MESSAGE, mPaint, WIDTH / 2, Alignment.ALIGN_NORMAL));
+        assertNotSame(layout, TextLayoutCache.obtain(MESSAGE, mPaint, WIDTH, Alignment.ALIGN_CENTER));
+        Paint biggerPaint = new Paint(mPaint);
+        biggerPaint.setTextSize(mPaint.getTextSize() * 2);
+        assertNotSame(layout, TextLayoutCache.obtain(MESSAGE, biggerPaint, WIDTH, Alignment.ALIGN_NORMAL));
+    }
+
+    @Test
+    public void shouldSharePrecomputedLayouts() {
+        StaticLayout layout = TextLayoutCache.obtainPrecomputed(MESSAGE + " precomputed", mPaint, WIDTH, Alignment.ALIGN_NORMAL);
+
+        assertSame(layout, TextLayoutCache.obtain(MESSAGE + " precomputed", mPaint, WIDTH, Alignment.ALIGN_NORMAL));
+        assertEquals(MESSAGE + " precomputed", layout.getText().toString());
+    }
+}
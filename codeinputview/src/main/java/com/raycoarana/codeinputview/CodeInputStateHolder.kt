@@ -0,0 +1,86 @@
+package com.raycoarana.codeinputview
+
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.receiveAsFlow
+
+/**
+ * Snapshot of the state of a [CodeInputView]
+ */
+data class CodeInputState(
+    val code: String = "",
+    val error: String? = null,
+    val isEditable: Boolean = true
+)
+
+/**
+ * Exposes the state of a [CodeInputView] as flows. The holder can outlive the view, for example
+ * kept in a ViewModel, and be attached to the new view after a configuration change, so no
+ * completion is lost or delivered twice.
+ *
+ * The [state] flow is conflated, so a slow collector only sees the latest state. Completed
+ * codes are kept until they are collected, so none is lost. It must be used from the UI
+ * thread. As [CodeInputView.bind] replaces the listeners of the view, attach the holder again
+ * after binding the view.
+ *
+ * Only [state] needs an opt-in with [ExperimentalCoroutinesApi], as [StateFlow] is still
+ * experimental.
+ */
+@UseExperimental(ExperimentalCoroutinesApi::class)
+class CodeInputStateHolder {
+
+    private val mutableState = MutableStateFlow(CodeInputState())
+    private val completions = Channel<String>(Channel.UNLIMITED)
+    private var view: CodeInputView? = null
+
+    private val codeChangeListener = OnCodeChangeListener { _, _, _, _ -> updateState() }
+    private val stateChangeListener = OnStateChangeListener { updateState() }
+    private val completeListener = OnCodeCompleteListener { code -> completions.offer(code) }
+
+    /**
+     * Current code, error and editable state of the attached view
+     */
+    @ExperimentalCoroutinesApi
+    val state: StateFlow<CodeInputState>
+        get() = mutableState
+
+    /**
+     * Codes completed by the user, in order. Every code is delivered exactly once, so the flow is
+     * meant for a single collector: with several, each code goes to only one of them.
+     */
+    val completedCodes: Flow<String> = completions.receiveAsFlow()
+
+    /**
+     * Starts observing a view, detaching from the previous one if any
+     *
+     * @param view the view to observe
+     */
+    fun attach(view: CodeInputView) {
+        detach()
+        this.view = view
+        view.addOnCodeChangeListener(codeChangeListener)
+        view.addOnStateChangeListener(stateChangeListener)
+        view.addOnCompleteListener(completeListener)
+        updateState()
+    }
+
+    /**
+     * Stops observing the attached view. The flows keep their last values.
+     */
+    fun detach() {
+        view?.let {
+            it.removeOnCodeChangeListener(codeChangeListener)
+            it.removeOnStateChangeListener(stateChangeListener)
+            it.removeOnCompleteListener(completeListener)
+        }
+        view = null
+    }
+
+    private fun updateState() {
+        val view = view ?: return
+        mutableState.value = CodeInputState(view.code, view.error, view.isEditable)
+    }
+}
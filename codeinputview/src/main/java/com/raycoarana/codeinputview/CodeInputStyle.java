@@ -0,0 +1,220 @@
+package com.raycoarana.codeinputview;
+
+import androidx.annotation.ColorRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Paint;
+import android.os.Build.VERSION;
+import android.os.Build.VERSION_CODES;
+import android.util.AttributeSet;
+import android.util.LruCache;
+import android.view.Gravity;
+import android.view.inputmethod.EditorInfo;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Immutable styling of a {@link CodeInputView}, resolved from its attributes. Styles are cached
+ * per theme, configuration, style and attribute values, so views inflated with the same styling
+ * share the resolved values and paints instead of parsing the attributes again.
+ *
+ * Paints are shared between views, a view must copy them before modifying any of them.
+ * CodeInputView does it in its mutable*Paint() methods, never change them anywhere else.
+ */
+final class CodeInputStyle {
+
+    private static final int DEFAULT_CODES = 6;
+    private static final int DEFAULT_ON_COMPLETE_DELAY = 200;
+    private static final int DEFAULT_TIME_CHARACTER_IS_SHOWN_WHILE_TYPING = 200;
+    private static final int MAX_CACHED_STYLES_PER_THEME = 16;
+
+    private static final Map<Resources.Theme, ThemeStyles> sCache = new WeakHashMap<>();
+
+    final int underlineColor;
+    final float underlineWidth;
+    final float underlineStrokeWidth;
+    final int underlineSelectedColor;
+    final float underlineSelectedStrokeWidth;
+    final float underlineErrorStrokeWidth;
+    final float underlineReduction;
+    final int lengthOfCode;
+    final int inputType;
+    final int textColor;
+    final float textSize;
+    final float textMarginBottom;
+    final int errorColor;
+    final int errorTextColor;
+    final float errorTextSize;
+    final float errorTextMarginTop;
+    final float errorTextMarginLeft;
+    final float errorTextMarginRight;
+    final boolean animateOnComplete;
+    final int onCompleteEventDelay;
+    final boolean showKeyboard;
+    final boolean passwordMode;
+    final boolean showPasswordWhileTyping;
+    final int timeCharacterIsShownWhileTypingInMillis;
+    final char passwordCharacter;
+    final int gravity;
+    final int errorTextGravity;
+    final boolean glyphCache;
+    final boolean cacheStaticLayers;
+    final int imeOptions;
+    final int imeActionId;
+    final CharSequence imeActionLabel;
+    final String privateImeOptions;
+    final int inputExtrasResId;
+
+    final Paint underlinePaint;
+    final Paint underlineSelectedPaint;
+    final Paint textPaint;
+    private Paint mErrorTextPaint;
+
+    /**
+     * Gets the style of a view, resolving it only if no other view with the same theme, style
+     * and attribute values did it before. Views could be inflated in a background thread, so it is
+     * safe to call this method from any thread.
+     *
+     * @param context      context of the view
+     * @param attrs        attributes of the view, could be null
+     * @param defStyleAttr attribute of the theme with the default style of the view
+     * @return the resolved style
+     */
+    @NonNull
+    static synchronized CodeInputStyle obtain(@NonNull Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        Resources.Theme theme = context.getTheme();
+        Configuration configuration = context.getResources().getConfiguration();
+        ThemeStyles themeStyles = sCache.get(theme);
+        if (themeStyles == null || !themeStyles.mConfiguration.equals(configuration)) {
+            // A configuration change handled by the activity keeps the theme, but colors and
+            // dimensions could resolve to other values, like in night mode or on a new density
+            themeStyles = new ThemeStyles(new Configuration(configuration));
+            sCache.put(theme, themeStyles);
+        }
+
+        String key = buildKey(attrs, defStyleAttr);
+        CodeInputStyle style = themeStyles.mStyles.get(key);
+        if (style == null) {
+            style = new CodeInputStyle(context, attrs, defStyleAttr);
+            themeStyles.mStyles.put(key, style);
+        }
+        return style;
+    }
+
+    /**
+     * The key is made of the style and the raw values of the attributes of the view, any
+     * reference in them is resolved the same way for the same theme.
+     */
+    private static String buildKey(@Nullable AttributeSet attrs, int defStyleAttr) {
+        StringBuilder key = new StringBuilder();
+        key.append(defStyleAttr);
+        if (attrs != null) {
+            key.append(':').append(attrs.getStyleAttribute());
+            for (int i = 0; i < attrs.getAttributeCount(); i++) {
+                int nameResource = attrs.getAttributeNameResource(i);
+                if (Arrays.binarySearch(R.styleable.CodeInputView, nameResource) >= 0) {
+                    key.append(';').append(nameResource).append('=').append(attrs.getAttributeValue(i));
+                }
+            }
+        }
+        return key.toString();
+    }
+
+    private CodeInputStyle(Context context, AttributeSet attrs, int defStyleAttr) {
+        Resources resources = context.getResources();
+        TypedArray attributes = context.obtainStyledAttributes(attrs, R.styleable.CodeInputView, defStyleAttr, 0);
+
+        underlineColor = attributes.getColor(R.styleable.CodeInputView_underline_color, getColor(resources, R.color.underline_default_color));
+        underlineWidth = attributes.getDimension(R.styleable.CodeInputView_underline_width, resources.getDimension(R.dimen.underline_width));
+        underlineStrokeWidth = attributes.getDimension(R.styleable.CodeInputView_underline_stroke_width, resources.getDimension(R.dimen.underline_stroke_width));
+        underlineSelectedColor = attributes.getColor(R.styleable.CodeInputView_underline_selected_color, getColor(resources, R.color.underline_selected_color));
+        underlineSelectedStrokeWidth = attributes.getDimension(R.styleable.CodeInputView_underline_selected_stroke_width, resources.getDimension(R.dimen.underline_selected_stroke_width));
+        underlineErrorStrokeWidth = attributes.getDimension(R.styleable.CodeInputView_underline_error_stroke_width, resources.getDimension(R.dimen.underline_error_stroke_width));
+        underlineReduction = attributes.getDimension(R.styleable.CodeInputView_underline_section_reduction, resources.getDimension(R.dimen.section_reduction));
+        lengthOfCode = attributes.getInt(R.styleable.CodeInputView_length_of_code, DEFAULT_CODES);
+        inputType = attributes.getInt(R.styleable.CodeInputView_input_type, CodeInputView.INPUT_TYPE_NUMERIC);
+        textColor = attributes.getInt(R.styleable.CodeInputView_code_text_color, getColor(resources, R.color.text_color));
+        textSize = attributes.getDimension(R.styleable.CodeInputView_code_text_size, resources.getDimension(R.dimen.text_size));
+        textMarginBottom = attributes.getDimension(R.styleable.CodeInputView_code_text_margin_bottom, resources.getDimension(R.dimen.text_margin_bottom));
+        errorColor = attributes.getInt(R.styleable.CodeInputView_error_color, getColor(resources, R.color.error_color));
+        errorTextColor = attributes.getInt(R.styleable.CodeInputView_error_text_color, getColor(resources, R.color.error_color));
+        errorTextSize = attributes.getDimension(R.styleable.CodeInputView_error_text_size, resources.getDimension(R.dimen.error_text_size));
+        errorTextMarginTop = attributes.getDimension(R.styleable.CodeInputView_error_text_margin_top, resources.getDimension(R.dimen.error_text_margin_top));
+        errorTextMarginLeft = attributes.getDimension(R.styleable.CodeInputView_error_text_margin_left, 0);
+        errorTextMarginRight = attributes.getDimension(R.styleable.CodeInputView_error_text_margin_right, 0);
+        animateOnComplete = attributes.getBoolean(R.styleable.CodeInputView_animate_on_complete, true);
+        onCompleteEventDelay = attributes.getInteger(R.styleable.CodeInputView_on_complete_delay, DEFAULT_ON_COMPLETE_DELAY);
+        showKeyboard = attributes.getBoolean(R.styleable.CodeInputView_show_keyboard, true);
+        passwordMode = attributes.getBoolean(R.styleable.CodeInputView_password_mode, false);
+        showPasswordWhileTyping = attributes.getBoolean(R.styleable.CodeInputView_show_password_while_typing, false);
+        timeCharacterIsShownWhileTypingInMillis = attributes.getInt(R.styleable.CodeInputView_time_character_is_shown_while_typing, DEFAULT_TIME_CHARACTER_IS_SHOWN_WHILE_TYPING);
+        gravity = attributes.getInteger(R.styleable.CodeInputView_gravity, Gravity.CENTER);
+        errorTextGravity = attributes.getInteger(R.styleable.CodeInputView_error_text_gravity, Gravity.CENTER);
+        glyphCache = attributes.getBoolean(R.styleable.CodeInputView_glyph_cache, false);
+        cacheStaticLayers = attributes.getBoolean(R.styleable.CodeInputView_cache_static_layers, false);
+        imeOptions = attributes.getInteger(R.styleable.CodeInputView_imeOptions, EditorInfo.IME_NULL);
+        imeActionId = attributes.getInteger(R.styleable.CodeInputView_imeActionId, 0);
+        imeActionLabel = attributes.getString(R.styleable.CodeInputView_imeActionLabel);
+        privateImeOptions = attributes.getString(R.styleable.CodeInputView_privateImeOptions);
+        inputExtrasResId = attributes.getInteger(R.styleable.CodeInputView_editorExtras, 0);
+
+        String passwordChar = attributes.getString(R.styleable.CodeInputView_password_character);
+        passwordCharacter = passwordChar != null && passwordChar.length() == 1 ? passwordChar.charAt(0) : '\u2022';
+        attributes.recycle();
+
+        underlinePaint = new Paint();
+        underlinePaint.setColor(underlineColor);
+        underlinePaint.setStrokeWidth(underlineStrokeWidth);
+        underlinePaint.setStyle(Paint.Style.STROKE);
+        underlineSelectedPaint = new Paint();
+        underlineSelectedPaint.setColor(underlineSelectedColor);
+        underlineSelectedPaint.setStrokeWidth(underlineSelectedStrokeWidth);
+        underlineSelectedPaint.setStyle(Paint.Style.STROKE);
+        textPaint = new Paint();
+        textPaint.setTextSize(textSize);
+        textPaint.setColor(textColor);
+        textPaint.setAntiAlias(true);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+    }
+
+    /**
+     * Error paint is created on first use, as most views never show an error
+     */
+    @NonNull
+    synchronized Paint getErrorTextPaint() {
+        if (mErrorTextPaint == null) {
+            mErrorTextPaint = new Paint();
+            mErrorTextPaint.setTextSize(errorTextSize);
+            mErrorTextPaint.setColor(errorTextColor);
+            mErrorTextPaint.setAntiAlias(true);
+        }
+        return mErrorTextPaint;
+    }
+
+    private static final class ThemeStyles {
+        private final Configuration mConfiguration;
+        // Attribute values set from data binding or code could make a new key for every view,
+        // so only the most recently used styles are kept
+        private final LruCache<String, CodeInputStyle> mStyles = new LruCache<>(MAX_CACHED_STYLES_PER_THEME);
+
+        ThemeStyles(Configuration configuration) {
+            mConfiguration = configuration;
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static int getColor(Resources resources, @ColorRes int resId) {
+        if (VERSION.SDK_INT < VERSION_CODES.M) {
+            return resources.getColor(resId);
+        } else {
+            return resources.getColor(resId, null);
+        }
+    }
+}
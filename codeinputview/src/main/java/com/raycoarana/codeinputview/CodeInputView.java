@@ -1,8 +1,14 @@
 package com.raycoarana.codeinputview;
 
 import java.io.IOException;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 
 import org.xmlpull.v1.XmlPullParserException;
@@ -14,13 +20,10 @@ import androidx.annotation.StringRes;
 import androidx.annotation.XmlRes;
 import androidx.core.content.res.ResourcesCompat;
 
-import android.animation.ArgbEvaluator;
-import android.animation.ValueAnimator;
-import android.animation.ValueAnimator.AnimatorUpdateListener;
 import android.annotation.SuppressLint;
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.Resources;
-import android.content.res.TypedArray;
 import android.content.res.XmlResourceParser;
 import android.graphics.Canvas;
 import android.graphics.Paint;
@@ -30,10 +33,11 @@ import android.os.Build.VERSION_CODES;
 import android.os.Bundle;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.text.Editable;
 import android.text.InputType;
 import android.text.Layout.Alignment;
-import android.text.SpannableStringBuilder;
 import android.text.StaticLayout;
+import android.text.TextUtils;
 import android.text.TextPaint;
 import android.util.AttributeSet;
 import android.util.Log;
@@ -42,28 +46,41 @@ import android.view.Gravity;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.View;
-import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.autofill.AutofillManager;
+import android.view.autofill.AutofillValue;
 import android.view.inputmethod.BaseInputConnection;
 import android.view.inputmethod.EditorInfo;
+import android.view.inputmethod.ExtractedText;
+import android.view.inputmethod.ExtractedTextRequest;
 import android.view.inputmethod.InputConnection;
 import android.view.inputmethod.InputMethodManager;
 
-import com.raycoarana.codeinputview.model.Underline;
+import com.raycoarana.codeinputview.animation.AnimationTimeline;
+import com.raycoarana.codeinputview.animation.ColorRamp;
+import com.raycoarana.codeinputview.data.CodeBuffer;
+import com.raycoarana.codeinputview.data.ListenerRegistry;
+import com.raycoarana.codeinputview.model.SectionGeometry;
+import com.raycoarana.codeinputview.render.CachedLayer;
+import com.raycoarana.codeinputview.render.GlyphAtlas;
+import com.raycoarana.codeinputview.text.InputAlphabet;
+import com.raycoarana.codeinputview.text.TextLayoutCache;
 
 public class CodeInputView extends View {
 
-    private static final int DEFAULT_CODES = 6;
-
     public static final int INPUT_TYPE_TEXT = 1;
     public static final int INPUT_TYPE_NUMERIC = 2;
 
     private static final int ANIMATION_DURATION = 500;
-    private static final int DISPATCH_COMPLETE_EVENT_DELAY = 200;
-    private static final int DEFAULT_TIME_CHARACTER_IS_SHOWN_WHILE_TYPING = 200;
+    private static final String AUTOFILL_HINT_SMS_OTP = "smsOTPCode";
 
     private static final String TAG = "CodeInputView";
 
-    private Underline[] mUnderlines;
+    private static final TextPaint sMeasureTextPaint = new TextPaint();
+    private static final Paint.FontMetricsInt sMeasureFontMetrics = new Paint.FontMetricsInt();
+
+    private CodeInputStyle mStyle;
+    private final SectionGeometry mSections = new SectionGeometry();
+    private final char[] mCharacterToDraw = new char[1];
     private Paint mUnderlinePaint;
     private Paint mUnderlineSelectedPaint;
     private Paint mTextPaint;
@@ -81,37 +98,123 @@ public class CodeInputView extends View {
     private int mUnderlineColor;
     private int mUnderlineSelectedColor;
     private int mTextColor;
-    private List<OnCodeCompleteListener> mInputCompletedListeners = new ArrayList<>();
-    private List<OnDigitInputListener> mDigitInputListeners = new ArrayList<>();
+    private final ListenerRegistry<OnCodeCompleteListener> mInputCompletedListeners = new ListenerRegistry<>(new OnCodeCompleteListener[0]);
+    private final ListenerRegistry<OnDigitInputListener> mDigitInputListeners = new ListenerRegistry<>(new OnDigitInputListener[0]);
+    private final ListenerRegistry<OnCodeChangeListener> mCodeChangeListeners = new ListenerRegistry<>(new OnCodeChangeListener[0]);
+    private final ListenerRegistry<OnStateChangeListener> mStateChangeListeners = new ListenerRegistry<>(new OnStateChangeListener[0]);
     private boolean mIsEditable = true;
     private int mInputType = INPUT_TYPE_NUMERIC;
+    private InputAlphabet mInputAlphabet;
     private int mUnderLineY;
-    private ValueAnimator mReductionAnimator;
-    private ValueAnimator mHideCharactersAnimator;
-    private ValueAnimator mErrorColorAnimator;
-    private ValueAnimator mErrorTextAnimator;
+    private AnimationTimeline mAnimationTimeline;
+    private AnimationTimeline.Track mReductionTrack;
+    private AnimationTimeline.Track mHideCharactersTrack;
+    private AnimationTimeline.Track mErrorColorTrack;
+    private AnimationTimeline.Track mErrorTextTrack;
+    private ColorRamp mErrorColorRamp;
     private float mCharactersBaseline;
+    private float mCharactersY;
     private String mErrorMessage;
     private int mErrorColor;
     private int mErrorTextColor;
     private float mErrorTextSize;
     private float mErrorTextMarginTop;
     private Paint mErrorTextPaint;
+    private int mErrorPlaceholderHeight = -1;
     private int mXOffset;
     private boolean mAnimateOnComplete;
     private int mOnCompleteEventDelay;
     private boolean mInPasswordMode;
     private boolean mShowPasswordWhileTyping;
-    private char mPasswordCharacter = '\u2022';
-    private boolean mShowKeyboard = true;
+    private char mPasswordCharacter;
+    private boolean mShowKeyboard;
     private long mTimeCharacterIsShownWhileTypingInNano;
-    private int mTimeCharacterIsShownWhileTypingInMillis = DEFAULT_TIME_CHARACTER_IS_SHOWN_WHILE_TYPING;
-    private long mLastTimeTypedInNano;
+    private int mTimeCharacterIsShownWhileTypingInMillis;
+    private final PasswordRevealScheduler mPasswordRevealScheduler = new PasswordRevealScheduler(this, new PasswordRevealScheduler.OnSectionMaskedListener() {
+        @Override
+        public void onSectionMasked(int position) {
+            invalidateSections(position, position);
+        }
+    });
     private int mGravity;
     private int mErrorTextGravity;
     private StaticLayout mErrorTextLayout;
+    private final Rect mContainerRect = new Rect();
+    private final Rect mGravityRect = new Rect();
+    private int mLayoutVersion;
+    private int mGeometryVersion = -1;
+    private int mGeometryWidth;
+    private int mGeometryHeight;
+    private int mMeasureVersion = -1;
+    private int mLastWidthMeasureSpec;
+    private int mLastHeightMeasureSpec;
+    private int mLastMeasuredWidth;
+    private int mLastMeasuredHeight;
+    private int mErrorGeneration;
+    private Executor mPendingPrewarmExecutor;
+    private String[] mPendingPrewarmMessages;
+    private boolean mUseGlyphCache;
+    private GlyphAtlas mGlyphAtlas;
+    private boolean mCacheStaticLayers;
+    private CachedLayer mSectionsLayer;
+    private CachedLayer mErrorTextLayer;
     private InputContentType mInputContentType = new InputContentType();
-    private SpannableStringBuilder mSpannableSupportBuilder = new SpannableStringBuilder();
+    private final CodeBuffer mCodeBuffer = new CodeBuffer();
+    private final char[] mRevertedCharacter = new char[1];
+    private final CharBuffer mRevertedText = CharBuffer.wrap(mRevertedCharacter);
+    private final EditHistory mEditHistory = new EditHistory(new EditHistory.Target() {
+        @Override
+        public CharSequence getCode() {
+            return mCodeBuffer;
+        }
+
+        @Override
+        public void insertCharacter(char character) {
+            mRevertedCharacter[0] = character;
+            replaceLastCharacters(0, mRevertedText, false);
+        }
+
+        @Override
+        public void deleteCharacter() {
+            replaceLastCharacters(1, null, false);
+        }
+
+        @Override
+        public void replaceCode(char[] code, int length) {
+            CodeInputView.this.replaceCode(code, length);
+        }
+    });
+    private final Runnable mDispatchCompleteRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mAnimateOnComplete) {
+                ensureAnimationTimeline();
+                mReductionTrack.start();
+                mHideCharactersTrack.start();
+            }
+            notifyCompleted();
+            startValidation();
+        }
+    };
+    private final Runnable mValidationTimeoutRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mValidationTask != null) {
+                String code = mValidationTask.mCode;
+                cancelValidation();
+                onValidationFailed(code, getValidationFailedMessage());
+            }
+        }
+    };
+    private CodeValidator mCodeValidator;
+    private Executor mValidationExecutor;
+    private ValidationTask mValidationTask;
+    private ValidationCache<ValidationTask> mValidationCache;
+    private long mValidationTimeoutMillis;
+    private String mValidationFailedMessage;
+    private boolean mShowValidationProgress;
+    private OnCodeValidatedListener mOnCodeValidatedListener;
+    private ExtractedTextRequest mExtractedTextRequest;
 
     static class InputContentType {
         int imeOptions = EditorInfo.IME_NULL;
@@ -144,99 +247,68 @@ public class CodeInputView extends View {
 
     public CodeInputView(Context context) {
         super(context);
-        init(null);
+        init(null, 0);
     }
 
     public CodeInputView(Context context, AttributeSet attributeset) {
         super(context, attributeset);
-        init(attributeset);
+        init(attributeset, 0);
     }
 
     public CodeInputView(Context context, AttributeSet attributeset, int defStyledAttrs) {
         super(context, attributeset, defStyledAttrs);
-        init(attributeset);
+        init(attributeset, defStyledAttrs);
     }
 
-    private void init(AttributeSet attributeset) {
+    private void init(AttributeSet attributeset, int defStyleAttr) {
         initViewOptions();
-        initDefaultAttributes();
-        initCustomAttributes(attributeset);
+        applyStyle(CodeInputStyle.obtain(getContext(), attributeset, defStyleAttr));
         initDataStructures();
-        initPaint();
-        initAnimator();
-    }
-
-    private void initDefaultAttributes() {
-        mUnderlineColor = getColor(R.color.underline_default_color);
-        mUnderlineWidth = getContext().getResources().getDimension(R.dimen.underline_width);
-        mUnderlineStrokeWidth = getContext().getResources().getDimension(R.dimen.underline_stroke_width);
-        mUnderlineSelectedColor = getColor(R.color.underline_selected_color);
-        mUnderlineSelectedStrokeWidth = getContext().getResources().getDimension(R.dimen.underline_selected_stroke_width);
-        mUnderlineErrorStrokeWidth = getContext().getResources().getDimension(R.dimen.underline_error_stroke_width);
-        mUnderlineReduction = getContext().getResources().getDimension(R.dimen.section_reduction);
-        mLengthOfCode = DEFAULT_CODES;
-        mTextColor = getColor(R.color.text_color);
-        mTextSize = getContext().getResources().getDimension(R.dimen.text_size);
-        mTextMarginBottom = getContext().getResources().getDimension(R.dimen.text_margin_bottom);
-        mErrorTextMarginLeft = 0;
-        mErrorTextMarginRight = 0;
-        mErrorColor = getColor(R.color.error_color);
-        mErrorTextColor = getColor(R.color.error_color);
-        mErrorTextSize = getContext().getResources().getDimension(R.dimen.error_text_size);
-        mErrorTextMarginTop = getContext().getResources().getDimension(R.dimen.error_text_margin_top);
+        updateGlyphAtlas();
+        updateStaticLayers();
+    }
+
+    private void applyStyle(CodeInputStyle style) {
+        mStyle = style;
+        mUnderlineColor = style.underlineColor;
+        mUnderlineWidth = style.underlineWidth;
+        mUnderlineStrokeWidth = style.underlineStrokeWidth;
+        mUnderlineSelectedColor = style.underlineSelectedColor;
+        mUnderlineSelectedStrokeWidth = style.underlineSelectedStrokeWidth;
+        mUnderlineErrorStrokeWidth = style.underlineErrorStrokeWidth;
+        mUnderlineReduction = style.underlineReduction;
         mReduction = mUnderlineReduction;
-        mGravity = Gravity.CENTER;
-        mErrorTextGravity = Gravity.CENTER;
-    }
-
-    @SuppressWarnings("deprecation")
-    private int getColor(@ColorRes int resId) {
-        if (VERSION.SDK_INT < VERSION_CODES.M) {
-            return getContext().getResources().getColor(resId);
-        } else {
-            return getContext().getResources().getColor(resId, null);
-        }
-    }
-
-    private void initCustomAttributes(AttributeSet attributeset) {
-
-        TypedArray attributes = getContext().obtainStyledAttributes(attributeset, R.styleable.CodeInputView);
-
-        mUnderlineColor = attributes.getColor(R.styleable.CodeInputView_underline_color, mUnderlineColor);
-        mUnderlineWidth = attributes.getDimension(R.styleable.CodeInputView_underline_width, mUnderlineWidth);
-        mUnderlineStrokeWidth = attributes.getDimension(R.styleable.CodeInputView_underline_stroke_width, mUnderlineStrokeWidth);
-        mUnderlineSelectedColor = attributes.getColor(R.styleable.CodeInputView_underline_selected_color, mUnderlineSelectedColor);
-        mUnderlineSelectedStrokeWidth = attributes.getDimension(R.styleable.CodeInputView_underline_selected_stroke_width, mUnderlineSelectedStrokeWidth);
-        mUnderlineErrorStrokeWidth = attributes.getDimension(R.styleable.CodeInputView_underline_error_stroke_width, mUnderlineErrorStrokeWidth);
-        mUnderlineReduction = attributes.getDimension(R.styleable.CodeInputView_underline_section_reduction, mUnderlineReduction);
-        mLengthOfCode = attributes.getInt(R.styleable.CodeInputView_length_of_code, mLengthOfCode);
-        mInputType = attributes.getInt(R.styleable.CodeInputView_input_type, mInputType);
-        mTextColor = attributes.getInt(R.styleable.CodeInputView_code_text_color, mTextColor);
-        mTextSize = attributes.getDimension(R.styleable.CodeInputView_code_text_size, mTextSize);
-        mTextMarginBottom = attributes.getDimension(R.styleable.CodeInputView_code_text_margin_bottom, mTextMarginBottom);
-        mErrorColor = attributes.getInt(R.styleable.CodeInputView_error_color, mErrorColor);
-        mErrorTextColor = attributes.getInt(R.styleable.CodeInputView_error_text_color, mErrorTextColor);
-        mErrorTextSize = attributes.getDimension(R.styleable.CodeInputView_error_text_size, mErrorTextSize);
-        mErrorTextMarginTop = attributes.getDimension(R.styleable.CodeInputView_error_text_margin_top, mErrorTextMarginTop);
-        mErrorTextMarginLeft = attributes.getDimension(R.styleable.CodeInputView_error_text_margin_left, mErrorTextMarginLeft);
-        mErrorTextMarginRight = attributes.getDimension(R.styleable.CodeInputView_error_text_margin_right, mErrorTextMarginRight);
-        mAnimateOnComplete = attributes.getBoolean(R.styleable.CodeInputView_animate_on_complete, true);
-        mOnCompleteEventDelay = attributes.getInteger(R.styleable.CodeInputView_on_complete_delay, DISPATCH_COMPLETE_EVENT_DELAY);
-        mShowKeyboard = attributes.getBoolean(R.styleable.CodeInputView_show_keyboard, mShowKeyboard);
-        mInPasswordMode = attributes.getBoolean(R.styleable.CodeInputView_password_mode, mInPasswordMode);
-        mShowPasswordWhileTyping = attributes.getBoolean(R.styleable.CodeInputView_show_password_while_typing, mShowPasswordWhileTyping);
-        mTimeCharacterIsShownWhileTypingInMillis = attributes.getInt(R.styleable.CodeInputView_time_character_is_shown_while_typing, mTimeCharacterIsShownWhileTypingInMillis);
+        mLengthOfCode = style.lengthOfCode;
+        mInputType = style.inputType;
+        mInputAlphabet = getDefaultInputAlphabet(mInputType);
+        mTextColor = style.textColor;
+        mTextSize = style.textSize;
+        mTextMarginBottom = style.textMarginBottom;
+        mErrorColor = style.errorColor;
+        mErrorTextColor = style.errorTextColor;
+        mErrorTextSize = style.errorTextSize;
+        mErrorTextMarginTop = style.errorTextMarginTop;
+        mErrorTextMarginLeft = style.errorTextMarginLeft;
+        mErrorTextMarginRight = style.errorTextMarginRight;
+        mAnimateOnComplete = style.animateOnComplete;
+        mOnCompleteEventDelay = style.onCompleteEventDelay;
+        mShowKeyboard = style.showKeyboard;
+        mInPasswordMode = style.passwordMode;
+        mShowPasswordWhileTyping = style.showPasswordWhileTyping;
+        mTimeCharacterIsShownWhileTypingInMillis = style.timeCharacterIsShownWhileTypingInMillis;
         mTimeCharacterIsShownWhileTypingInNano = TimeUnit.MILLISECONDS.toNanos(mTimeCharacterIsShownWhileTypingInMillis);
-        mGravity = attributes.getInteger(R.styleable.CodeInputView_gravity, mGravity);
-        mErrorTextGravity = attributes.getInteger(R.styleable.CodeInputView_error_text_gravity, mErrorTextGravity);
-        mInputContentType.imeOptions = attributes.getInteger(R.styleable.CodeInputView_imeOptions, mInputContentType.imeOptions);
-        mInputContentType.imeActionId = attributes.getInteger(R.styleable.CodeInputView_imeActionId, mInputContentType.imeActionId);
-        mInputContentType.imeActionLabel = attributes.getString(R.styleable.CodeInputView_imeActionLabel);
-        mInputContentType.privateImeOptions = attributes.getString(R.styleable.CodeInputView_privateImeOptions);
-        int inputExtrasResId = attributes.getInteger(R.styleable.CodeInputView_editorExtras, 0);
-        if (inputExtrasResId != 0) {
+        mPasswordCharacter = style.passwordCharacter;
+        mGravity = style.gravity;
+        mErrorTextGravity = style.errorTextGravity;
+        mUseGlyphCache = style.glyphCache;
+        mCacheStaticLayers = style.cacheStaticLayers;
+        mInputContentType.imeOptions = style.imeOptions;
+        mInputContentType.imeActionId = style.imeActionId;
+        mInputContentType.imeActionLabel = style.imeActionLabel;
+        mInputContentType.privateImeOptions = style.privateImeOptions;
+        if (style.inputExtrasResId != 0) {
             try {
-                setInputExtras(inputExtrasResId);
+                setInputExtras(style.inputExtrasResId);
             } catch (XmlPullParserException e) {
                 Log.w(TAG, "Failure reading input extras", e);
             } catch (IOException e) {
@@ -244,59 +316,124 @@ public class CodeInputView extends View {
             }
         }
 
-        String passwordChar = attributes.getString(R.styleable.CodeInputView_password_character);
-        if (passwordChar != null && passwordChar.length() == 1) {
-            mPasswordCharacter = passwordChar.charAt(0);
-        }
-        attributes.recycle();
+        // Paints are shared with the style until this view needs to change them
+        mUnderlinePaint = style.underlinePaint;
+        mUnderlineSelectedPaint = style.underlineSelectedPaint;
+        mTextPaint = style.textPaint;
     }
 
     private void initDataStructures() {
-        mUnderlines = new Underline[mLengthOfCode];
-    }
-
-    private void initPaint() {
-        mUnderlinePaint = new Paint();
-        mUnderlinePaint.setColor(mUnderlineColor);
-        mUnderlinePaint.setStrokeWidth(mUnderlineStrokeWidth);
-        mUnderlinePaint.setStyle(android.graphics.Paint.Style.STROKE);
-        mUnderlineSelectedPaint = new Paint();
-        mUnderlineSelectedPaint.setColor(mUnderlineSelectedColor);
-        mUnderlineSelectedPaint.setStrokeWidth(mUnderlineSelectedStrokeWidth);
-        mUnderlineSelectedPaint.setStyle(android.graphics.Paint.Style.STROKE);
-        mTextPaint = new Paint();
-        mTextPaint.setTextSize(mTextSize);
-        mTextPaint.setColor(mTextColor);
-        mTextPaint.setAntiAlias(true);
-        mTextPaint.setTextAlign(Paint.Align.CENTER);
-        mErrorTextPaint = new Paint();
-        mErrorTextPaint.setTextSize(mErrorTextSize);
-        mErrorTextPaint.setColor(mErrorTextColor);
-        mErrorTextPaint.setAntiAlias(true);
-    }
-
-    private void initAnimator() {
-        mReductionAnimator = ValueAnimator.ofFloat(mUnderlineReduction, mUnderlineWidth / 2);
-        mReductionAnimator.setDuration(ANIMATION_DURATION);
-        mReductionAnimator.addUpdateListener(new ReductionAnimatorListener());
-        mReductionAnimator.setInterpolator(new AccelerateDecelerateInterpolator());
-        mHideCharactersAnimator = ValueAnimator.ofFloat(0, mTextPaint.getFontSpacing() + mTextMarginBottom);
-        mHideCharactersAnimator.setDuration(ANIMATION_DURATION);
-        mHideCharactersAnimator.addUpdateListener(new HideCharactersAnimatorListener());
-        mHideCharactersAnimator.setInterpolator(new AccelerateDecelerateInterpolator());
-        mErrorColorAnimator = ValueAnimator.ofObject(new ArgbEvaluator(), mUnderlineColor, mErrorColor);
-        mErrorColorAnimator.setDuration(ANIMATION_DURATION);
-        mErrorColorAnimator.addUpdateListener(new ErrorColorAnimatorListener());
-        mErrorColorAnimator.setInterpolator(new AccelerateDecelerateInterpolator());
-        mErrorTextAnimator = ValueAnimator.ofInt(0, 255);
-        mErrorTextAnimator.setDuration(ANIMATION_DURATION);
-        mErrorTextAnimator.addUpdateListener(new ErrorTextAnimatorListener());
-        mErrorTextAnimator.setInterpolator(new AccelerateDecelerateInterpolator());
+        mCodeBuffer.setCapacity(mLengthOfCode);
+        mEditHistory.setCodeLength(mLengthOfCode);
+        mSections.setCount(mLengthOfCode);
+        mPasswordRevealScheduler.setCount(mLengthOfCode);
+    }
+
+    private Paint mutableUnderlinePaint() {
+        if (mUnderlinePaint == mStyle.underlinePaint) {
+            mUnderlinePaint = new Paint(mUnderlinePaint);
+        }
+        return mUnderlinePaint;
+    }
+
+    private Paint mutableUnderlineSelectedPaint() {
+        if (mUnderlineSelectedPaint == mStyle.underlineSelectedPaint) {
+            mUnderlineSelectedPaint = new Paint(mUnderlineSelectedPaint);
+        }
+        return mUnderlineSelectedPaint;
+    }
+
+    private Paint mutableTextPaint() {
+        if (mTextPaint == mStyle.textPaint) {
+            mTextPaint = new Paint(mTextPaint);
+        }
+        return mTextPaint;
+    }
+
+    /**
+     * Error paint is taken from the style on first use, as most views never show an error. It is
+     * copied if the error text color or size were changed before.
+     */
+    private Paint getErrorTextPaint() {
+        if (mErrorTextPaint == null) {
+            mErrorTextPaint = mStyle.getErrorTextPaint();
+            if (mErrorTextColor != mStyle.errorTextColor || mErrorTextSize != mStyle.errorTextSize) {
+                mErrorTextPaint = new Paint(mErrorTextPaint);
+                mErrorTextPaint.setColor(mErrorTextColor);
+                mErrorTextPaint.setTextSize(mErrorTextSize);
+            }
+        }
+        return mErrorTextPaint;
+    }
+
+    private Paint mutableErrorTextPaint() {
+        if (getErrorTextPaint() == mStyle.getErrorTextPaint()) {
+            mErrorTextPaint = new Paint(mErrorTextPaint);
+        }
+        return mErrorTextPaint;
+    }
+
+    /**
+     * Animations are created on first use, once an error is shown or the code is completed
+     */
+    private void ensureAnimationTimeline() {
+        if (mAnimationTimeline != null) {
+            return;
+        }
+
+        mAnimationTimeline = new AnimationTimeline(new TimelineListener());
+        mReductionTrack = mAnimationTimeline.newTrack(ANIMATION_DURATION);
+        mHideCharactersTrack = mAnimationTimeline.newTrack(ANIMATION_DURATION);
+        mErrorColorTrack = mAnimationTimeline.newTrack(ANIMATION_DURATION);
+        mErrorTextTrack = mAnimationTimeline.newTrack(ANIMATION_DURATION);
+        mErrorColorRamp = new ColorRamp(mUnderlineColor, mErrorColor);
     }
 
     private void initViewOptions() {
         setFocusable(true);
         setFocusableInTouchMode(true);
+        if (VERSION.SDK_INT >= VERSION_CODES.O) {
+            initAutofill();
+        }
+    }
+
+    @TargetApi(VERSION_CODES.O)
+    private void initAutofill() {
+        if (getAutofillHints() == null) {
+            setAutofillHints(AUTOFILL_HINT_SMS_OTP);
+        }
+        if (getImportantForAutofill() == IMPORTANT_FOR_AUTOFILL_AUTO) {
+            setImportantForAutofill(IMPORTANT_FOR_AUTOFILL_YES);
+        }
+    }
+
+    @TargetApi(VERSION_CODES.O)
+    @Override
+    public int getAutofillType() {
+        return AUTOFILL_TYPE_TEXT;
+    }
+
+    @TargetApi(VERSION_CODES.O)
+    @Nullable
+    @Override
+    public AutofillValue getAutofillValue() {
+        return AutofillValue.forText(getCode());
+    }
+
+    /**
+     * Fills the whole code in a single change, dispatching the complete event once if it is
+     * completed. The value is ignored while the view is not editable, as when it is locked after
+     * completing the code, the same as typed characters.
+     */
+    @TargetApi(VERSION_CODES.O)
+    @Override
+    public void autofill(AutofillValue value) {
+        if (value == null || !value.isText()) {
+            return;
+        }
+
+        replaceLastCharacters(mCodeBuffer.length(), value.getTextValue());
+        updateInputMethodSelection();
     }
 
     @Override
@@ -320,25 +457,45 @@ public class CodeInputView extends View {
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
         updateGravity(w, h);
+        if (mPendingPrewarmMessages != null) {
+            prewarmErrorMessages(mPendingPrewarmExecutor, mPendingPrewarmMessages);
+        }
     }
 
     private void updateGravity() {
+        invalidateLayoutInputs();
         if (getWidth() > 0 && getHeight() > 0) {
             updateGravity(getWidth(), getHeight());
         }
         forceLayout();
     }
 
-    private void updateGravity(int w, int h) {
-        Rect container = new Rect(0, 0, w, h);
-        Rect destinationRect = new Rect();
-
-        mErrorTextLayout = buildErrorTextLayout(w);
-        Gravity.apply(mGravity, getDesiredWidth(), getDesiredHeight(mErrorTextLayout), container, destinationRect);
+    /**
+     * Marks the cached measure and geometry as outdated. Must be called whenever anything that
+     * affects the size or the position of the sections or the error text changes.
+     */
+    private void invalidateLayoutInputs() {
+        mLayoutVersion++;
+    }
 
-        mXOffset = destinationRect.left;
-        mUnderLineY = (int) (destinationRect.top + mTextMarginBottom + mTextPaint.getFontSpacing());
+    private void updateGravity(int w, int h) {
+        if (mGeometryVersion == mLayoutVersion && mGeometryWidth == w && mGeometryHeight == h) {
+            return;
+        }
+        mGeometryVersion = mLayoutVersion;
+        mGeometryWidth = w;
+        mGeometryHeight = h;
+
+        mContainerRect.set(0, 0, w, h);
+        mErrorTextLayout = mErrorMessage != null ? buildErrorTextLayout(w) : null;
+        int errorTextHeight = mErrorTextLayout != null ? mErrorTextLayout.getHeight() : getErrorPlaceholderHeight();
+        Gravity.apply(mGravity, getDesiredWidth(), getDesiredHeight(errorTextHeight), mContainerRect, mGravityRect);
+
+        mXOffset = mGravityRect.left;
+        mUnderLineY = (int) (mGravityRect.top + mTextMarginBottom + mTextPaint.getFontSpacing());
+        mCharactersY = mUnderLineY - mTextMarginBottom;
         initUnderline();
+        invalidateStaticLayers();
     }
 
     /**
@@ -372,27 +529,28 @@ public class CodeInputView extends View {
     }
 
     private StaticLayout buildErrorTextLayout(int width) {
-        int textWidth = (int) (width - mErrorTextMarginLeft - mErrorTextMarginRight);
-        StaticLayout staticLayout;
         String errorMessage = mErrorMessage != null ? mErrorMessage : " ";
-        TextPaint textPaint = new TextPaint(mErrorTextPaint);
-        Alignment alignment = getAlignment();
-        if (VERSION.SDK_INT >= VERSION_CODES.M) {
-            staticLayout = StaticLayout.Builder.obtain(errorMessage, 0, errorMessage.length(), textPaint, textWidth)
-                    .setAlignment(alignment)
-                    .build();
-        } else {
-            staticLayout = new StaticLayout(
-                    errorMessage,
-                    textPaint,
-                    textWidth,
-                    alignment,
-                    1.0f,
-                    0,
-                    true
-            );
+        return TextLayoutCache.obtain(errorMessage, getErrorTextPaint(), getErrorTextWidth(width), getAlignment());
+    }
+
+    /**
+     * Height reserved for the error text while there is no error, which is the height of a
+     * single line of error text. It is computed from the font metrics, so no layout is built.
+     */
+    private int getErrorPlaceholderHeight() {
+        if (mErrorPlaceholderHeight < 0) {
+            // Views could be inflated in a background thread while others are measured
+            synchronized (sMeasureTextPaint) {
+                sMeasureTextPaint.setTextSize(mErrorTextSize);
+                sMeasureTextPaint.getFontMetricsInt(sMeasureFontMetrics);
+                mErrorPlaceholderHeight = sMeasureFontMetrics.bottom - sMeasureFontMetrics.top;
+            }
         }
-        return staticLayout;
+        return mErrorPlaceholderHeight;
+    }
+
+    private int getErrorTextWidth(int width) {
+        return (int) (width - mErrorTextMarginLeft - mErrorTextMarginRight);
     }
 
     @SuppressLint("RtlHardcoded")
@@ -408,18 +566,17 @@ public class CodeInputView extends View {
     }
 
     private void initUnderline() {
-        for (int i = 0; i < mLengthOfCode; i++) {
-            mUnderlines[i] = createPath(i, mUnderlineWidth);
-        }
-    }
-
-    private Underline createPath(int position, float sectionWidth) {
-        float fromX = mXOffset + sectionWidth * (float) position;
-        return new Underline(fromX, mUnderLineY, fromX + sectionWidth, mUnderLineY);
+        mSections.layout(mXOffset, mUnderLineY, mUnderlineWidth);
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (mMeasureVersion == mLayoutVersion &&
+                mLastWidthMeasureSpec == widthMeasureSpec && mLastHeightMeasureSpec == heightMeasureSpec) {
+            setMeasuredDimension(mLastMeasuredWidth, mLastMeasuredHeight);
+            return;
+        }
+
         int width = MeasureSpec.getSize(widthMeasureSpec);
         int height = MeasureSpec.getSize(heightMeasureSpec);
         if (MeasureSpec.getMode(widthMeasureSpec) != MeasureSpec.EXACTLY) {
@@ -427,18 +584,25 @@ public class CodeInputView extends View {
         }
 
         if (MeasureSpec.getMode(heightMeasureSpec) != MeasureSpec.EXACTLY) {
-            int desiredHeight = getDesiredHeight(buildErrorTextLayout(width));
+            int errorTextHeight = mErrorMessage != null ? buildErrorTextLayout(width).getHeight() : getErrorPlaceholderHeight();
+            int desiredHeight = getDesiredHeight(errorTextHeight);
             height = height > 0 ? Math.min(desiredHeight, height) : desiredHeight;
         }
         setMeasuredDimension(width, height);
+
+        mMeasureVersion = mLayoutVersion;
+        mLastWidthMeasureSpec = widthMeasureSpec;
+        mLastHeightMeasureSpec = heightMeasureSpec;
+        mLastMeasuredWidth = width;
+        mLastMeasuredHeight = height;
     }
 
     private int getDesiredWidth() {
         return (int) (mLengthOfCode * mUnderlineWidth);
     }
 
-    private int getDesiredHeight(StaticLayout errorTextLayout) {
-        return (int) (errorTextLayout.getHeight() + mErrorTextMarginTop + mTextPaint.getFontSpacing() + mTextMarginBottom);
+    private int getDesiredHeight(int errorTextHeight) {
+        return (int) (errorTextHeight + mErrorTextMarginTop + mTextPaint.getFontSpacing() + mTextMarginBottom);
     }
 
     private void showKeyboard() {
@@ -475,27 +639,174 @@ public class CodeInputView extends View {
                 break;
         }
 
+        outAttrs.initialSelStart = mCodeBuffer.length();
+        outAttrs.initialSelEnd = outAttrs.initialSelStart;
         outAttrs.imeOptions = mInputContentType.imeOptions;
         outAttrs.privateImeOptions = mInputContentType.privateImeOptions;
         outAttrs.actionLabel = mInputContentType.imeActionLabel;
         outAttrs.actionId = mInputContentType.imeActionId;
         outAttrs.extras = mInputContentType.extras;
 
-        return new BaseInputConnection(this, false) {
+        mExtractedTextRequest = null;
+        return new CodeInputConnection();
+    }
 
-            @Override
-            public boolean deleteSurroundingText(int beforeLength, int afterLength) {
-                return deleteCharacter();
+    /**
+     * Connection with the input method backed by the code. Text committed or composed by the
+     * input method, like a pasted code or a suggestion, is applied in a single change instead
+     * of one key event per character. The cursor is always at the end of the code, and any
+     * composing text are the last characters of it.
+     */
+    private class CodeInputConnection extends BaseInputConnection {
+        private int mComposingLength;
+
+        CodeInputConnection() {
+            super(CodeInputView.this, true);
+        }
+
+        /**
+         * The code is not kept in an Editable, every edit of the input method goes through the
+         * methods of this connection
+         */
+        @Override
+        public Editable getEditable() {
+            return null;
+        }
+
+        @Override
+        public boolean commitText(CharSequence text, int newCursorPosition) {
+            int committed = replaceLastCharacters(getComposingLength(), text);
+            mComposingLength = 0;
+            reportSelectionIfTruncated(committed, text);
+            return true;
+        }
+
+        @Override
+        public boolean setComposingText(CharSequence text, int newCursorPosition) {
+            int composed = replaceLastCharacters(getComposingLength(), text);
+            mComposingLength = Math.max(composed, 0);
+            reportSelectionIfTruncated(composed, text);
+            return true;
+        }
+
+        /**
+         * The cursor is always at the end of the code
+         */
+        @Override
+        public boolean setSelection(int start, int end) {
+            int length = mCodeBuffer.length();
+            if (start == length && end == length) {
+                return true;
             }
+            updateInputMethodSelection(getComposingLength());
+            return false;
+        }
 
-            @Override
-            public boolean performEditorAction(int actionCode) {
-                if (CodeInputView.this.onEditorAction(actionCode)) {
-                    super.performEditorAction(actionCode);
-                }
+        @Override
+        public boolean setComposingRegion(int start, int end) {
+            if (end != mCodeBuffer.length() || start < 0 || start > end) {
+                return false;
+            }
+            mComposingLength = end - start;
+            return true;
+        }
+
+        @Override
+        public boolean finishComposingText() {
+            mComposingLength = 0;
+            return true;
+        }
+
+        @Override
+        public boolean deleteSurroundingText(int beforeLength, int afterLength) {
+            if (beforeLength <= 0) {
                 return true;
             }
-        };
+            mComposingLength = 0;
+            return replaceLastCharacters(beforeLength, null) >= 0;
+        }
+
+        /**
+         * Characters of a code are always in the BMP, so code points are the same as chars
+         */
+        @TargetApi(VERSION_CODES.N)
+        @Override
+        public boolean deleteSurroundingTextInCodePoints(int beforeLength, int afterLength) {
+            return deleteSurroundingText(beforeLength, afterLength);
+        }
+
+        @Override
+        public CharSequence getTextBeforeCursor(int length, int flags) {
+            int codeLength = mCodeBuffer.length();
+            return mCodeBuffer.subSequence(Math.max(codeLength - length, 0), codeLength);
+        }
+
+        @Override
+        public CharSequence getTextAfterCursor(int length, int flags) {
+            return "";
+        }
+
+        @Override
+        public CharSequence getSelectedText(int flags) {
+            return null;
+        }
+
+        @Override
+        public ExtractedText getExtractedText(ExtractedTextRequest request, int flags) {
+            if ((flags & GET_EXTRACTED_TEXT_MONITOR) != 0) {
+                mExtractedTextRequest = request;
+            }
+            return buildExtractedText();
+        }
+
+        @Override
+        public boolean performEditorAction(int actionCode) {
+            if (CodeInputView.this.onEditorAction(actionCode)) {
+                super.performEditorAction(actionCode);
+            }
+            return true;
+        }
+
+        private int getComposingLength() {
+            return Math.min(mComposingLength, mCodeBuffer.length());
+        }
+
+        /**
+         * The input method expects the cursor after the whole text, so it is told where the
+         * cursor is when some characters of the text were not valid or did not fit
+         */
+        private void reportSelectionIfTruncated(int written, CharSequence text) {
+            if (written != (text != null ? text.length() : 0)) {
+                updateInputMethodSelection(getComposingLength());
+            }
+        }
+    }
+
+    private ExtractedText buildExtractedText() {
+        ExtractedText extractedText = new ExtractedText();
+        extractedText.text = getCode();
+        extractedText.startOffset = 0;
+        extractedText.partialStartOffset = -1;
+        extractedText.partialEndOffset = -1;
+        extractedText.selectionStart = mCodeBuffer.length();
+        extractedText.selectionEnd = mCodeBuffer.length();
+        extractedText.flags = ExtractedText.FLAG_SINGLE_LINE;
+        return extractedText;
+    }
+
+    /**
+     * Sends the code to an input method that monitors it, like a fullscreen one showing the
+     * code in its own text field
+     */
+    private void updateInputMethodExtractedText() {
+        if (mExtractedTextRequest == null) {
+            return;
+        }
+
+        InputMethodManager inputMethodManager = (InputMethodManager) getContext().getSystemService(Context.INPUT_METHOD_SERVICE);
+        if (inputMethodManager != null && inputMethodManager.isActive(this)) {
+            inputMethodManager.updateExtractedText(this, mExtractedTextRequest.token, buildExtractedText());
+        }
     }
 
     /**
@@ -574,6 +885,7 @@ public class CodeInputView extends View {
 
         setError(savedState.mError);
         setCode(savedState.mCode);
+        mEditHistory.clear();
     }
 
     /**
@@ -779,7 +1091,8 @@ public class CodeInputView extends View {
 
     public void setTextColor(int color) {
         mTextColor = color;
-        mTextPaint.setColor(color);
+        mutableTextPaint().setColor(color);
+        updateGlyphAtlas();
         invalidate();
     }
 
@@ -795,7 +1108,10 @@ public class CodeInputView extends View {
 
     public void setErrorTextColor(int color) {
         mErrorTextColor = color;
-        mErrorTextPaint.setColor(color);
+        if (mErrorTextPaint != null) {
+            mutableErrorTextPaint().setColor(color);
+        }
+        invalidateStaticLayers();
         invalidate();
     }
 
@@ -811,7 +1127,10 @@ public class CodeInputView extends View {
 
     public void setErrorColor(int color) {
         mErrorColor = color;
-        updateErrorColorAnimator();
+        if (mErrorColorRamp != null) {
+            mErrorColorRamp.update(mUnderlineColor, mErrorColor);
+        }
+        invalidateStaticLayers();
         invalidate();
     }
 
@@ -827,15 +1146,14 @@ public class CodeInputView extends View {
 
     public void setUnderlineColor(int color) {
         mUnderlineColor = color;
-        mUnderlinePaint.setColor(mUnderlineColor);
-        updateErrorColorAnimator();
+        mutableUnderlinePaint().setColor(mUnderlineColor);
+        if (mErrorColorRamp != null) {
+            mErrorColorRamp.update(mUnderlineColor, mErrorColor);
+        }
+        invalidateStaticLayers();
         invalidate();
     }
 
-    private void updateErrorColorAnimator() {
-        mErrorColorAnimator.setObjectValues(mUnderlineColor, mErrorColor);
-    }
-
     @SuppressWarnings("unused")
     public int getUnderlineColor() {
         return mUnderlineColor;
@@ -848,7 +1166,7 @@ public class CodeInputView extends View {
 
     public void setUnderlineSelectedColor(int color) {
         mUnderlineSelectedColor = color;
-        mUnderlineSelectedPaint.setColor(mUnderlineSelectedColor);
+        mutableUnderlineSelectedPaint().setColor(mUnderlineSelectedColor);
         invalidate();
     }
 
@@ -869,138 +1187,641 @@ public class CodeInputView extends View {
     }
 
     private boolean deleteCharacter() {
-        boolean canDelete = prepareForDelete(mSpannableSupportBuilder.length());
+        int length = mCodeBuffer.length();
+        char lastCharacter = length > 0 ? mCodeBuffer.charAt(length - 1) : 0;
+        boolean deleted = removeLastCharacter();
+        if (deleted) {
+            mEditHistory.recordDelete(lastCharacter);
+            updateInputMethodSelection();
+        }
+        return deleted;
+    }
+
+    private boolean removeLastCharacter() {
+        boolean canDelete = prepareForDelete(mCodeBuffer.length());
         if (canDelete) {
-            int length = mSpannableSupportBuilder.length();
-            mSpannableSupportBuilder.delete(length - 1, length);
+            mCodeBuffer.deleteLast();
+            notifyCodeChanged(mCodeBuffer.length(), 1, 0);
         }
         return canDelete;
     }
 
     private boolean prepareForDelete(int currentLength) {
-        mLastTimeTypedInNano = 0;
+        mPasswordRevealScheduler.clear();
         boolean canDelete = currentLength > 0 && mIsEditable;
         if (canDelete) {
+            removeCallbacks(mDispatchCompleteRunnable);
+            releaseValidation();
             restoreState();
             notifyDeleteDigit();
             clearError();
-            invalidate();
+            invalidateSections(currentLength - 1, currentLength);
         }
         return canDelete;
     }
 
     private void restoreState() {
-        if (mSpannableSupportBuilder.length() == mLengthOfCode &&
-                !mReductionAnimator.getAnimatedValue().equals(mUnderlineReduction) &&
+        if (mCodeBuffer.isFull() &&
+                mReductionTrack != null && mReductionTrack.getFraction() != 0 &&
                 mAnimateOnComplete) {
-            mReductionAnimator.reverse();
-            mHideCharactersAnimator.reverse();
+            mReductionTrack.reverse();
+            mHideCharactersTrack.reverse();
         }
     }
 
     /**
-     * Capture the keyboard events but only if are A-Z 0-9
+     * Capture the keyboard events but only if are characters of the input alphabet
      */
     @Override
     public boolean onKeyUp(int keyCode, KeyEvent keyevent) {
-        char typedChar = (char) keyevent.getUnicodeChar();
-        boolean isValid;
-        if (mInputType == INPUT_TYPE_NUMERIC) {
-            isValid = Character.isDigit(typedChar);
+        char typedChar = mInputAlphabet.normalize((char) keyevent.getUnicodeChar());
+        if (mIsEditable && typedChar != InputAlphabet.NONE && !mCodeBuffer.isFull()) {
+            appendCharacter(typedChar);
+            mEditHistory.recordInsert(typedChar);
+            updateInputMethodSelection();
+            return true;
         } else {
-            isValid = Character.isLetterOrDigit(typedChar);
+            return false;
         }
+    }
 
-        if (mIsEditable && isValid && mSpannableSupportBuilder.length() < mLengthOfCode) {
-            mSpannableSupportBuilder.append(typedChar);
-            mLastTimeTypedInNano = System.nanoTime();
-            postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    invalidate();
+    private static InputAlphabet getDefaultInputAlphabet(int inputType) {
+        return inputType == INPUT_TYPE_NUMERIC ? InputAlphabet.numeric() : InputAlphabet.letterOrDigit();
+    }
+
+    /**
+     * Replaces the last characters of the code with the valid characters of a text in a single
+     * change, as done by the input method when it commits or composes text. The whole change is
+     * invalidated once and the complete event is dispatched at most once.
+     *
+     * @param deleteCount number of characters to replace at the end of the code
+     * @param text        text to replace them with, could be null
+     * @return number of characters of the text at the end of the code, or -1 if the view is not editable
+     */
+    private int replaceLastCharacters(int deleteCount, @Nullable CharSequence text) {
+        return replaceLastCharacters(deleteCount, text, true);
+    }
+
+    /**
+     * Replaces the last characters of the code, recording the change in the edit history and
+     * completing the code, or applying an edit being undone or redone. An undone or redone edit
+     * is already recorded by the history, and it does not complete the code, as its
+     * characters were not typed.
+     *
+     * @param isTyped false when undoing or redoing an edit
+     */
+    private int replaceLastCharacters(int deleteCount, @Nullable CharSequence text, boolean isTyped) {
+        if (!mIsEditable) {
+            return -1;
+        }
+
+        int length = mCodeBuffer.length();
+        int textLength = text != null ? text.length() : 0;
+        deleteCount = Math.min(deleteCount, length);
+
+        // Characters that the text does not change are kept, so composing a text appends to it
+        int start = 0;
+        int kept = 0;
+        while (kept < deleteCount && start < textLength) {
+            char character = mInputAlphabet.normalize(text.charAt(start));
+            if (character != InputAlphabet.NONE) {
+                if (character != mCodeBuffer.charAt(length - deleteCount + kept)) {
+                    break;
                 }
-            }, mTimeCharacterIsShownWhileTypingInMillis);
-            invalidate();
-            notifyInputDigit(typedChar);
-            if (mSpannableSupportBuilder.length() == mLengthOfCode) {
-                dispatchComplete();
+                kept++;
             }
-            return true;
-        } else {
-            return false;
+            start++;
         }
-    }
+        deleteCount -= kept;
 
-    private void dispatchComplete() {
-        mIsEditable = false;
-        hideKeyboard();
-        getHandler().postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                if (mAnimateOnComplete) {
-                    mReductionAnimator.start();
-                    mHideCharactersAnimator.start();
+        if (deleteCount > 0) {
+            removeCallbacks(mDispatchCompleteRunnable);
+            releaseValidation();
+            mPasswordRevealScheduler.clear();
+            restoreState();
+            clearError();
+            for (int i = 0; i < deleteCount; i++) {
+                if (isTyped) {
+                    mEditHistory.recordDelete(mCodeBuffer.charAt(mCodeBuffer.length() - 1));
                 }
-                notifyCompleted();
+                mCodeBuffer.deleteLast();
+                notifyDeleteDigit();
             }
-        }, mOnCompleteEventDelay);
-    }
+        }
 
-    private void notifyCompleted() {
-        String code = getCode();
-        for (OnCodeCompleteListener listener : mInputCompletedListeners) {
-            listener.onCompleted(code);
+        int from = mCodeBuffer.length();
+        for (int i = start; i < textLength && !mCodeBuffer.isFull(); i++) {
+            char character = mInputAlphabet.normalize(text.charAt(i));
+            if (character != InputAlphabet.NONE) {
+                mCodeBuffer.append(character);
+                if (isTyped) {
+                    mEditHistory.recordInsert(character);
+                }
+                notifyInputDigit(character);
+            }
         }
-    }
 
-    private void notifyInputDigit(char newDigit) {
-        for (OnDigitInputListener listener : mDigitInputListeners) {
-            listener.onInput(newDigit);
+        int to = mCodeBuffer.length();
+        if (deleteCount == 0 && to == from) {
+            return kept;
+        }
+        if (to > from && mInPasswordMode && mShowPasswordWhileTyping) {
+            mPasswordRevealScheduler.reveal(to - 1, mTimeCharacterIsShownWhileTypingInNano);
+        }
+        invalidateSections(from, Math.max(length, to));
+        notifyCodeChanged(from, deleteCount, to - from);
+        if (isTyped && to > from && mCodeBuffer.isFull()) {
+            dispatchComplete();
         }
+        return kept + to - from;
     }
 
-    private void notifyDeleteDigit() {
-        for (OnDigitInputListener listener : mDigitInputListeners) {
-            listener.onDelete();
-        }
+    /**
+     * Reports the cursor to the input method after the code changed outside of it
+     */
+    private void updateInputMethodSelection() {
+        updateInputMethodSelection(0);
     }
 
     /**
-     * Enables that the user can edit the code or not
+     * Reports the cursor to the input method
      *
-     * @param value true will let the user change the code in the input, false will ignore any action from the user
+     * @param composingLength number of characters at the end of the code being composed
      */
-    @SuppressWarnings("SameParameterValue")
-    public void setEditable(boolean value) {
-        mIsEditable = value;
-        if (mIsEditable && hasFocus()) {
-            showKeyboard();
+    private void updateInputMethodSelection(int composingLength) {
+        InputMethodManager inputMethodManager = (InputMethodManager) getContext().getSystemService(Context.INPUT_METHOD_SERVICE);
+        if (inputMethodManager != null && inputMethodManager.isActive(this)) {
+            int length = mCodeBuffer.length();
+            int composingStart = composingLength > 0 ? length - composingLength : -1;
+            int composingEnd = composingLength > 0 ? length : -1;
+            inputMethodManager.updateSelection(this, length, length, composingStart, composingEnd);
         }
-        invalidate();
     }
 
     /**
-     * Adds a listener that will be fired once the user complete all the code characters
-     *
-     * @param listener listener to add
+     * Makes the input method drop its state and read the code again, as the view now shows
+     * another code
      */
-    public void addOnCompleteListener(OnCodeCompleteListener listener) {
-        mInputCompletedListeners.add(listener);
+    private void restartInputMethod() {
+        InputMethodManager inputMethodManager = (InputMethodManager) getContext().getSystemService(Context.INPUT_METHOD_SERVICE);
+        if (inputMethodManager != null && inputMethodManager.isActive(this)) {
+            inputMethodManager.restartInput(this);
+        }
+    }
+
+    private void appendCharacter(char character) {
+        final int position = mCodeBuffer.length();
+        if (!mCodeBuffer.append(character)) {
+            return;
+        }
+        if (mInPasswordMode && mShowPasswordWhileTyping) {
+            mPasswordRevealScheduler.reveal(position, mTimeCharacterIsShownWhileTypingInNano);
+        }
+        invalidateSections(position, position + 1);
+        notifyInputDigit(character);
+        notifyCodeChanged(position, 0, 1);
+        if (mCodeBuffer.isFull()) {
+            dispatchComplete();
+        }
     }
 
+    private void replaceCode(char[] code, int length) {
+        int previousLength = mCodeBuffer.length();
+        mCodeBuffer.set(code, length);
+        notifyCodeChanged(0, previousLength, length);
+        mPasswordRevealScheduler.clear();
+        releaseValidation();
+        invalidateCodeArea();
+    }
 
     /**
-     * Removes a listener that will be fired once the user complete all the code characters
+     * Reverts the last edit of the code, a typed or deleted character or a call to
+     * {@link #setCode(String)}. Nothing is done if the view is not editable. Restoring the last
+     * character of the code does not complete it again.
      *
-     * @param listener listener to remove
+     * @return true if an edit was reverted
      */
     @SuppressWarnings("unused")
-    public void removeOnCompleteListener(OnCodeCompleteListener listener) {
-        mInputCompletedListeners.remove(listener);
+    public boolean undo() {
+        if (!mIsEditable || !mEditHistory.undo()) {
+            return false;
+        }
+        updateInputMethodSelection();
+        return true;
     }
 
     /**
-     * Adds a listener that will be fired every time a digit is added or removed
+     * Applies again the last edit reverted with {@link #undo()}. Any new edit of the code
+     * discards the edits that could be redone.
+     *
+     * @return true if an edit was applied
+     */
+    @SuppressWarnings("unused")
+    public boolean redo() {
+        if (!mIsEditable || !mEditHistory.redo()) {
+            return false;
+        }
+        updateInputMethodSelection();
+        return true;
+    }
+
+    @SuppressWarnings("unused")
+    public boolean canUndo() {
+        return mIsEditable && mEditHistory.canUndo();
+    }
+
+    @SuppressWarnings("unused")
+    public boolean canRedo() {
+        return mIsEditable && mEditHistory.canRedo();
+    }
+
+    private void dispatchComplete() {
+        String rejection = getCachedRejection();
+        if (rejection != null) {
+            // A code known to be wrong shows its error again without being completed
+            onValidationFailed(getCode(), rejection);
+            return;
+        }
+
+        setEditableState(false);
+        hideKeyboard();
+        postDelayed(mDispatchCompleteRunnable, mOnCompleteEventDelay);
+    }
+
+    /**
+     * Sets a validator that will check the code once the user completes it, after the complete
+     * listeners are notified. The validator runs in the given executor and its result is applied
+     * on the UI thread. As without a validator, the view is not editable once the code is
+     * completed: a valid code keeps it that way, while a rejected code shows its error message
+     * with {@link #setError(String)} and makes the view editable again, as does a failing
+     * validator or a timeout. The validation is cancelled if the code changes or the view is
+     * detached while it is running, unless a validation cache is set with
+     * {@link #setValidationCache(int, long)}.
+     *
+     * @param validator validator of the code, or null to remove it
+     * @param executor  executor where to run the validator
+     */
+    @SuppressWarnings("unused")
+    public void setCodeValidator(@Nullable CodeValidator validator, @Nullable Executor executor) {
+        if (validator != null && executor == null) {
+            throw new IllegalArgumentException("An executor is required to run the validator");
+        }
+
+        cancelValidation();
+        mCodeValidator = validator;
+        mValidationExecutor = executor;
+        if (mValidationCache != null) {
+            mValidationCache.clear();
+        }
+    }
+
+    /**
+     * Enables a cache of the codes rejected by the validator, so completing a code that was
+     * rejected shows its error message at once, without notifying the complete listeners again.
+     * While a code is being validated, changing the code or detaching the view does not cancel
+     * its validation, that keeps running to cache its result, and completing the same code again
+     * waits for it instead of starting a new one. Accepted codes are not cached.
+     *
+     * @param maxSize          max number of rejected codes to keep, 0 to disable the cache
+     * @param timeToLiveMillis time a rejected code is kept
+     */
+    @SuppressWarnings("unused")
+    public void setValidationCache(int maxSize, long timeToLiveMillis) {
+        cancelValidation();
+        mValidationCache = maxSize > 0 ? new ValidationCache<ValidationTask>(maxSize, timeToLiveMillis) : null;
+    }
+
+    /**
+     * Max time to wait for the validator, 0 to wait forever. Once it expires the validation is
+     * cancelled and the validation failed message is shown.
+     *
+     * @param timeoutMillis timeout in millis
+     */
+    @SuppressWarnings("unused")
+    public void setValidationTimeout(long timeoutMillis) {
+        mValidationTimeoutMillis = timeoutMillis;
+    }
+
+    @SuppressWarnings("unused")
+    public long getValidationTimeout() {
+        return mValidationTimeoutMillis;
+    }
+
+    /**
+     * Message shown when the validator fails or times out
+     *
+     * @param message the message to show
+     */
+    @SuppressWarnings("unused")
+    public void setValidationFailedMessage(@Nullable String message) {
+        mValidationFailedMessage = message;
+    }
+
+    /**
+     * Shows the underlines with the selected color while the code is being validated
+     *
+     * @param value true to show the validation in progress
+     */
+    @SuppressWarnings("unused")
+    public void setShowValidationProgress(boolean value) {
+        mShowValidationProgress = value;
+        updateValidationProgress();
+    }
+
+    @SuppressWarnings("unused")
+    public void setOnCodeValidatedListener(@Nullable OnCodeValidatedListener listener) {
+        mOnCodeValidatedListener = listener;
+    }
+
+    /**
+     * Get if the code is being validated
+     *
+     * @return true while the validator is running
+     */
+    public boolean isValidating() {
+        return mValidationTask != null;
+    }
+
+    /**
+     * Cancels the validation of the code, if it is running
+     */
+    public void cancelValidation() {
+        if (mValidationTask == null) {
+            return;
+        }
+
+        mValidationTask.cancel(true);
+        if (mValidationCache != null) {
+            mValidationCache.removeInFlight(mValidationTask.mCode, mValidationTask);
+        }
+        finishValidation();
+    }
+
+    /**
+     * Stops waiting for the validation after the code changed. With a cache the validation
+     * keeps running, so its result is cached and the same code can wait for it again.
+     */
+    private void releaseValidation() {
+        if (mValidationCache != null) {
+            if (mValidationTask != null) {
+                finishValidation();
+            }
+        } else {
+            cancelValidation();
+        }
+    }
+
+    private void startValidation() {
+        releaseValidation();
+        if (mCodeValidator == null) {
+            return;
+        }
+
+        String code = getCode();
+        if (mValidationCache != null) {
+            // The code could have been rejected by a validation that ended after it was completed
+            String rejection = mValidationCache.getRejection(code);
+            if (rejection != null) {
+                onValidationFailed(code, rejection);
+                return;
+            }
+            mValidationTask = mValidationCache.getInFlight(code);
+        }
+        if (mValidationTask == null) {
+            mValidationTask = new ValidationTask(mCodeValidator, code);
+            if (mValidationCache != null) {
+                mValidationCache.putInFlight(code, mValidationTask);
+            }
+            mValidationExecutor.execute(mValidationTask);
+        }
+        if (mValidationTimeoutMillis > 0) {
+            postDelayed(mValidationTimeoutRunnable, mValidationTimeoutMillis);
+        }
+        updateValidationProgress();
+    }
+
+    @Nullable
+    private String getCachedRejection() {
+        if (mCodeValidator == null || mValidationCache == null) {
+            return null;
+        }
+        return mValidationCache.getRejection(getCode());
+    }
+
+    private void finishValidation() {
+        mValidationTask = null;
+        removeCallbacks(mValidationTimeoutRunnable);
+        updateValidationProgress();
+    }
+
+    private void onValidationDone(ValidationTask task) {
+        String errorMessage;
+        boolean failed = false;
+        try {
+            errorMessage = task.get();
+        } catch (ExecutionException e) {
+            Log.w(TAG, "Failure validating the code", e.getCause());
+            errorMessage = getValidationFailedMessage();
+            failed = true;
+        } catch (InterruptedException | CancellationException e) {
+            return;
+        }
+
+        if (mValidationCache != null) {
+            mValidationCache.removeInFlight(task.mCode, task);
+            if (errorMessage != null && !failed) {
+                mValidationCache.putRejection(task.mCode, errorMessage);
+            }
+        }
+        if (task != mValidationTask) {
+            return;
+        }
+
+        finishValidation();
+
+        if (errorMessage == null) {
+            setEditableState(false);
+            if (mOnCodeValidatedListener != null) {
+                mOnCodeValidatedListener.onValid(task.mCode);
+            }
+        } else {
+            onValidationFailed(task.mCode, errorMessage);
+        }
+    }
+
+    private void onValidationFailed(String code, String errorMessage) {
+        setEditableState(true);
+        setError(errorMessage);
+        if (hasFocus()) {
+            showKeyboard();
+        }
+        if (mOnCodeValidatedListener != null) {
+            mOnCodeValidatedListener.onInvalid(code, errorMessage);
+        }
+    }
+
+    private String getValidationFailedMessage() {
+        if (mValidationFailedMessage == null) {
+            mValidationFailedMessage = getContext().getString(R.string.validation_failed);
+        }
+        return mValidationFailedMessage;
+    }
+
+    private void updateValidationProgress() {
+        int color = mShowValidationProgress && mValidationTask != null ? mUnderlineSelectedColor : mUnderlineColor;
+        if (mErrorMessage == null && mUnderlinePaint.getColor() != color) {
+            mutableUnderlinePaint().setColor(color);
+            invalidateStaticLayers();
+            invalidateCodeArea();
+        }
+    }
+
+    /**
+     * Runs the validator in the executor and posts the result to the UI thread
+     */
+    private class ValidationTask extends FutureTask<String> {
+        private final String mCode;
+
+        ValidationTask(final CodeValidator validator, final String code) {
+            super(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return validator.validate(code);
+                }
+            });
+            mCode = code;
+        }
+
+        @Override
+        protected void done() {
+            if (!isCancelled()) {
+                post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onValidationDone(ValidationTask.this);
+                    }
+                });
+            }
+        }
+    }
+
+    private void notifyCompleted() {
+        String code = getCode();
+        OnCodeCompleteListener[] listeners = mInputCompletedListeners.getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onCompleted(code);
+        }
+    }
+
+    private void notifyInputDigit(char newDigit) {
+        OnDigitInputListener[] listeners = mDigitInputListeners.getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onInput(newDigit);
+        }
+    }
+
+    private void notifyCodeChanged(int start, int before, int count) {
+        if (before == 0 && count == 0) {
+            return;
+        }
+
+        updateInputMethodExtractedText();
+
+        if (VERSION.SDK_INT >= VERSION_CODES.O) {
+            notifyAutofillValueChanged();
+        }
+
+        OnCodeChangeListener[] listeners = mCodeChangeListeners.getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onCodeChanged(mCodeBuffer, start, before, count);
+        }
+    }
+
+    @TargetApi(VERSION_CODES.O)
+    private void notifyAutofillValueChanged() {
+        AutofillManager autofillManager = getContext().getSystemService(AutofillManager.class);
+        if (autofillManager != null) {
+            autofillManager.notifyValueChanged(this);
+        }
+    }
+
+    private void notifyDeleteDigit() {
+        OnDigitInputListener[] listeners = mDigitInputListeners.getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onDelete();
+        }
+    }
+
+    /**
+     * Enables that the user can edit the code or not
+     *
+     * @param value true will let the user change the code in the input, false will ignore any action from the user
+     */
+    @SuppressWarnings("SameParameterValue")
+    public void setEditable(boolean value) {
+        setEditableState(value);
+        if (mIsEditable && hasFocus()) {
+            showKeyboard();
+        }
+        invalidate();
+    }
+
+    /**
+     * Get if the user can edit the code
+     *
+     * @return true if the user can change the code
+     */
+    public boolean isEditable() {
+        return mIsEditable;
+    }
+
+    private void setEditableState(boolean value) {
+        if (mIsEditable != value) {
+            mIsEditable = value;
+            notifyStateChanged();
+        }
+    }
+
+    /**
+     * Adds a listener notified when the error or the editable state of the view change
+     */
+    void addOnStateChangeListener(OnStateChangeListener listener) {
+        mStateChangeListeners.add(listener);
+    }
+
+    void removeOnStateChangeListener(OnStateChangeListener listener) {
+        mStateChangeListeners.remove(listener);
+    }
+
+    private void notifyStateChanged() {
+        OnStateChangeListener[] listeners = mStateChangeListeners.getListeners();
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onStateChanged(this);
+        }
+    }
+
+    /**
+     * Adds a listener that will be fired once the user complete all the code characters
+     *
+     * @param listener listener to add
+     */
+    public void addOnCompleteListener(OnCodeCompleteListener listener) {
+        mInputCompletedListeners.add(listener);
+    }
+
+
+    /**
+     * Removes a listener that will be fired once the user complete all the code characters
+     *
+     * @param listener listener to remove
+     */
+    @SuppressWarnings("unused")
+    public void removeOnCompleteListener(OnCodeCompleteListener listener) {
+        mInputCompletedListeners.remove(listener);
+    }
+
+    /**
+     * Adds a listener that will be fired every time a digit is added or removed
      *
      * @param listener listener to add
      */
@@ -1019,6 +1840,28 @@ public class CodeInputView extends View {
         mDigitInputListeners.remove(listener);
     }
 
+    /**
+     * Adds a listener that will be fired once per change of the code, with the range that
+     * changed. Typing, deleting, text committed by the input method and {@link #setCode(String)}
+     * are notified, a text pasted at once is notified as a single change.
+     *
+     * @param listener listener to add
+     */
+    @SuppressWarnings("unused")
+    public void addOnCodeChangeListener(OnCodeChangeListener listener) {
+        mCodeChangeListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener that will be fired once per change of the code
+     *
+     * @param listener listener to remove
+     */
+    @SuppressWarnings("unused")
+    public void removeOnCodeChangeListener(OnCodeChangeListener listener) {
+        mCodeChangeListeners.remove(listener);
+    }
+
     /**
      * Delay time after the user completes the code before OnCodeCompleteListener is fired
      *
@@ -1061,53 +1904,254 @@ public class CodeInputView extends View {
         return super.performClick();
     }
 
-    @Override
-    protected void onDraw(Canvas canvas) {
-        for (int i = 0; i < mUnderlines.length; i++) {
-            Underline sectionPath = mUnderlines[i];
-            float fromX = sectionPath.getFromX() + mReduction;
-            float fromY = sectionPath.getFromY();
-            float toX = sectionPath.getToX() - mReduction;
-            float toY = sectionPath.getToY();
-            int charactersCount = mSpannableSupportBuilder.length();
-            if (charactersCount > i) {
-                canvas.save();
-                canvas.clipRect(0, 0, toX, toY);
-                boolean canBeShown = charactersCount - 1 == i && mShowPasswordWhileTyping && System.nanoTime() - mLastTimeTypedInNano < mTimeCharacterIsShownWhileTypingInNano;
-                char charToDraw = (mInPasswordMode && !canBeShown) ? mPasswordCharacter : mSpannableSupportBuilder.charAt(i);
-                drawCharacter(fromX, toX, charToDraw, canvas);
-                canvas.restore();
-            }
-            drawSection(i, fromX, fromY, toX, toY, canvas);
+    /**
+     * Draws the code sections. This is called on every frame while animating, so it must not
+     * allocate: characters are drawn from a char buffer, the clock is read once per frame and
+     * section coordinates are precomputed in {@link #initUnderline()}.
+     */
+    @Override
+    protected void onDraw(Canvas canvas) {
+        int charactersCount = mCodeBuffer.length();
+        boolean charactersCanBeShown = mInPasswordMode && mShowPasswordWhileTyping;
+        long now = charactersCanBeShown ? System.nanoTime() : 0;
+        float underlineY = mSections.getY();
+        if (mGlyphAtlas != null && mGlyphAtlas.isRecycled()) {
+            updateGlyphAtlas();
+        }
+        for (int i = 0; i < mSections.getCount() && i < charactersCount; i++) {
+            canvas.save();
+            canvas.clipRect(0, 0, mSections.getToX(i) - mReduction, underlineY);
+            boolean canBeShown = charactersCanBeShown && mPasswordRevealScheduler.isRevealed(i, now);
+            char charToDraw = (mInPasswordMode && !canBeShown) ? mPasswordCharacter : mCodeBuffer.charAt(i);
+            drawCharacter(mSections.getCenterX(i), charToDraw, canvas);
+            canvas.restore();
+        }
+
+        if (mSectionsLayer != null && canvas.isHardwareAccelerated() && canCacheSections() && !isAnimatingSections()) {
+            mSectionsLayer.draw(canvas, getWidth(), getHeight(), mSectionsRecorder);
+            drawSelectedSection(canvas);
+        } else {
+            drawSections(canvas);
+        }
+
+        if (mErrorTextLayer != null && canvas.isHardwareAccelerated() && mErrorMessage != null && !isAnimatingErrorText()) {
+            mErrorTextLayer.draw(canvas, getWidth(), getHeight(), mErrorTextRecorder);
+        } else {
+            drawErrorMessage(canvas);
+        }
+    }
+
+    /**
+     * The selected section is drawn over the cached layer of sections, so it can only be used
+     * when the selected underline completely covers the unselected one
+     */
+    private boolean canCacheSections() {
+        return mUnderlineSelectedPaint.getStrokeWidth() >= mUnderlinePaint.getStrokeWidth() &&
+                mUnderlineSelectedPaint.getAlpha() == 255;
+    }
+
+    /**
+     * The cached layers are not used while an animation changes their content, as they would be
+     * recorded again on every frame
+     */
+    private boolean isAnimatingSections() {
+        return mAnimationTimeline != null && (mReductionTrack.isRunning() || mErrorColorTrack.isRunning());
+    }
+
+    private boolean isAnimatingErrorText() {
+        return mAnimationTimeline != null && mErrorTextTrack.isRunning();
+    }
+
+    private final CachedLayer.Recorder mSectionsRecorder = new CachedLayer.Recorder() {
+        @Override
+        public void record(@NonNull Canvas canvas) {
+            int linesCount = mSections.buildLines(mReduction, -1);
+            canvas.drawLines(mSections.getLines(), 0, linesCount, mUnderlinePaint);
+        }
+    };
+
+    private final CachedLayer.Recorder mErrorTextRecorder = new CachedLayer.Recorder() {
+        @Override
+        public void record(@NonNull Canvas canvas) {
+            drawErrorMessage(canvas);
+        }
+    };
+
+    /**
+     * Enables or disables caching the underlines and the error message in display lists, so they
+     * are not recorded again when only the code characters change. Requires API 29, it is
+     * ignored in previous versions. Static layers cache is disabled by default.
+     *
+     * @param enabled true to cache the static parts of the view, false to draw them on every frame
+     */
+    @SuppressWarnings("unused")
+    public void setStaticLayersCacheEnabled(boolean enabled) {
+        mCacheStaticLayers = enabled;
+        updateStaticLayers();
+        invalidate();
+    }
+
+    /**
+     * Get if the static parts of the view are cached
+     *
+     * @return true if the static layers cache is enabled or false if not
+     */
+    @SuppressWarnings("unused")
+    public boolean isStaticLayersCacheEnabled() {
+        return mCacheStaticLayers;
+    }
+
+    private void updateStaticLayers() {
+        if (VERSION.SDK_INT < VERSION_CODES.Q) {
+            return;
+        }
+
+        if (mCacheStaticLayers && mSectionsLayer == null) {
+            mSectionsLayer = new CachedLayer("CodeInputView.sections");
+            mErrorTextLayer = new CachedLayer("CodeInputView.errorText");
+        } else if (!mCacheStaticLayers && mSectionsLayer != null) {
+            releaseStaticLayers();
+            mSectionsLayer = null;
+            mErrorTextLayer = null;
+        }
+    }
+
+    private void invalidateStaticLayers() {
+        if (mSectionsLayer != null) {
+            mSectionsLayer.invalidate();
+            mErrorTextLayer.invalidate();
+        }
+    }
+
+    private void releaseStaticLayers() {
+        if (mSectionsLayer != null) {
+            mSectionsLayer.release();
+            mErrorTextLayer.release();
         }
+    }
 
-        drawErrorMessage(canvas);
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        releaseStaticLayers();
+        releaseValidation();
     }
 
     private void drawErrorMessage(Canvas canvas) {
-        if (mErrorMessage == null) {
+        if (mErrorMessage == null || mErrorTextLayout == null) {
             return;
         }
 
+        // Layouts are shared with other views, so the color is applied just before drawing
+        mErrorTextLayout.getPaint().setColor(getErrorTextPaint().getColor());
         canvas.save();
         canvas.translate(mErrorTextMarginLeft, mUnderLineY + mErrorTextMarginTop);
         mErrorTextLayout.draw(canvas);
         canvas.restore();
     }
 
-    private void drawSection(int position, float fromX, float fromY, float toX, float toY, Canvas canvas) {
-        Paint paint = mUnderlinePaint;
-        if (position == mSpannableSupportBuilder.length() && hasFocus()) {
-            paint = mUnderlineSelectedPaint;
+    /**
+     * Invalidates only the area of the given sections, including its characters and underlines.
+     * The dirty rect only limits what is redrawn in software rendering, since API 28 hardware
+     * rendering ignores it and redraws the whole view.
+     *
+     * @param fromPosition first section to invalidate
+     * @param toPosition   last section to invalidate, inclusive
+     */
+    @SuppressWarnings("deprecation")
+    private void invalidateSections(int fromPosition, int toPosition) {
+        fromPosition = Math.max(fromPosition, 0);
+        toPosition = Math.min(toPosition, mSections.getCount() - 1);
+        if (fromPosition > toPosition) {
+            return;
+        }
+
+        float maxStrokeWidth = Math.max(mUnderlineStrokeWidth, Math.max(mUnderlineSelectedStrokeWidth, mUnderlineErrorStrokeWidth));
+        // Characters are centered in their section, but a wide glyph or a negative left bearing
+        // draws outside of it, up to the text size from the center
+        float glyphOverflow = mTextPaint.getTextSize() - mUnderlineWidth / 2;
+        float padding = Math.max(maxStrokeWidth, glyphOverflow);
+        int left = (int) Math.floor(mSections.getFromX(fromPosition) - padding) - 1;
+        int right = (int) Math.ceil(mSections.getToX(toPosition) + padding) + 1;
+        int bottom = (int) Math.ceil(mSections.getY() + maxStrokeWidth / 2) + 1;
+        invalidate(left, 0, right, bottom);
+    }
+
+    private void invalidateCodeArea() {
+        invalidateSections(0, mSections.getCount() - 1);
+    }
+
+    @SuppressWarnings("deprecation")
+    private void invalidateErrorText() {
+        invalidate(0, (int) (mUnderLineY + mErrorTextMarginTop), getWidth(), getHeight());
+    }
+
+    /**
+     * Draws all the unselected sections in a single batch and the selected one, if any, on its own
+     */
+    private void drawSections(Canvas canvas) {
+        int selectedSection = hasFocus() ? mCodeBuffer.length() : -1;
+        int linesCount = mSections.buildLines(mReduction, selectedSection);
+        canvas.drawLines(mSections.getLines(), 0, linesCount, mUnderlinePaint);
+        drawSelectedSection(canvas);
+    }
+
+    private void drawSelectedSection(Canvas canvas) {
+        int selectedSection = hasFocus() ? mCodeBuffer.length() : -1;
+        if (selectedSection >= 0 && selectedSection < mSections.getCount()) {
+            canvas.drawLine(mSections.getFromX(selectedSection) + mReduction, mSections.getY(),
+                    mSections.getToX(selectedSection) - mReduction, mSections.getY(),
+                    mUnderlineSelectedPaint);
+        }
+    }
+
+    private void drawCharacter(float centerX, char character, Canvas canvas) {
+        float baselineY = mCharactersY + mCharactersBaseline;
+        if (mGlyphAtlas == null || !mGlyphAtlas.draw(canvas, character, centerX, baselineY)) {
+            mCharacterToDraw[0] = character;
+            canvas.drawText(mCharacterToDraw, 0, 1, centerX, baselineY, mTextPaint);
         }
-        canvas.drawLine(fromX, fromY, toX, toY, paint);
     }
 
-    private void drawCharacter(float fromX, float toX, Character character, Canvas canvas) {
-        float actualWidth = toX - fromX;
-        float centerWidth = actualWidth / 2;
-        float centerX = fromX + centerWidth;
-        canvas.drawText(character.toString(), centerX, (mUnderLineY - mTextMarginBottom) + mCharactersBaseline, mTextPaint);
+    /**
+     * Enables or disables drawing the code characters from a pre-rasterized glyph cache instead of
+     * shaping the text on every frame. Only the digits in numeric mode and the password character
+     * are cached, any other character is drawn as text.
+     * Glyph cache is disabled by default.
+     *
+     * @param enabled true to use the glyph cache, false to draw every character as text
+     */
+    @SuppressWarnings("unused")
+    public void setGlyphCacheEnabled(boolean enabled) {
+        mUseGlyphCache = enabled;
+        updateGlyphAtlas();
+        invalidate();
+    }
+
+    /**
+     * Get if the code characters are drawn from the glyph cache
+     *
+     * @return true if the glyph cache is enabled or false if not
+     */
+    @SuppressWarnings("unused")
+    public boolean isGlyphCacheEnabled() {
+        return mUseGlyphCache;
+    }
+
+    private void updateGlyphAtlas() {
+        if (!mUseGlyphCache) {
+            mGlyphAtlas = null;
+            return;
+        }
+
+        String glyphs = mInputAlphabet.getCharacters();
+        if (glyphs == null) {
+            glyphs = "";
+        }
+        if (mInPasswordMode) {
+            glyphs += mPasswordCharacter;
+        }
+        mGlyphAtlas = glyphs.isEmpty() ? null : GlyphAtlas.obtain(getContext(), mTextPaint, glyphs.toCharArray());
     }
 
     /**
@@ -1116,7 +2160,18 @@ public class CodeInputView extends View {
      * @return the code
      */
     public String getCode() {
-        return mSpannableSupportBuilder.toString();
+        return mCodeBuffer.toString();
+    }
+
+    /**
+     * Copies the current code into the given array, without creating a String
+     *
+     * @param dest array where to copy the code, must have room for {@link #getLengthOfCode()} characters
+     * @return number of characters copied
+     */
+    @SuppressWarnings("unused")
+    public int getCode(@NonNull char[] dest) {
+        return mCodeBuffer.getChars(dest);
     }
 
     /**
@@ -1131,9 +2186,15 @@ public class CodeInputView extends View {
             return;
         }
 
-        mSpannableSupportBuilder.clear();
-        mSpannableSupportBuilder.append(code);
-        invalidate();
+        int previousLength = mCodeBuffer.length();
+        mEditHistory.recordReplace(mCodeBuffer);
+        mCodeBuffer.set(code);
+        notifyCodeChanged(0, previousLength, mCodeBuffer.length());
+
+        mPasswordRevealScheduler.clear();
+        releaseValidation();
+        invalidateCodeArea();
+        updateInputMethodSelection();
     }
 
     /**
@@ -1143,8 +2204,7 @@ public class CodeInputView extends View {
      */
     @SuppressWarnings("unused")
     public void setError(@StringRes int errorMessage) {
-        mErrorMessage = getContext().getString(errorMessage);
-        setError(mErrorMessage);
+        setError(getContext().getString(errorMessage));
     }
 
     /**
@@ -1153,35 +2213,114 @@ public class CodeInputView extends View {
      * @param errorMessage the message to show
      */
     public void setError(String errorMessage) {
+        mErrorGeneration++;
+        applyError(errorMessage, null);
+    }
+
+    /**
+     * Changes the state of the view to show an error message, like {@link #setError(String)}, but
+     * the message is measured and laid out in the given executor. The error is shown and its
+     * animations started once the layout is ready, in a single pass on the UI thread. Any later
+     * call to setError discards a pending async error.
+     *
+     * @param errorMessage the message to show
+     * @param executor     executor where to layout the message
+     */
+    @SuppressWarnings("unused")
+    public void setErrorAsync(@Nullable final String errorMessage, @NonNull Executor executor) {
+        final int generation = ++mErrorGeneration;
+        final int width = getWidth();
+        if (errorMessage == null || errorMessage.isEmpty() || width <= 0) {
+            applyError(errorMessage, null);
+            return;
+        }
+
+        final Paint errorTextPaint = new Paint(getErrorTextPaint());
+        final int textWidth = getErrorTextWidth(width);
+        final Alignment alignment = getAlignment();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final StaticLayout layout = TextLayoutCache.obtainPrecomputed(errorMessage, errorTextPaint, textWidth, alignment);
+                post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mErrorGeneration) {
+                            applyError(errorMessage, getErrorTextWidth(getWidth()) == textWidth ? layout : null);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Measures and lays out the given messages in the executor, so showing any of them later
+     * with {@link #setError(String)} or {@link #setErrorAsync(String, Executor)} does not need
+     * to measure them again. If the view is not laid out yet, it will be done once it is.
+     *
+     * @param executor executor where to layout the messages
+     * @param messages error messages that could be shown by this view
+     */
+    @SuppressWarnings("unused")
+    public void prewarmErrorMessages(@NonNull Executor executor, @NonNull final String... messages) {
+        int width = getWidth();
+        if (width <= 0) {
+            mPendingPrewarmExecutor = executor;
+            mPendingPrewarmMessages = messages;
+            return;
+        }
+
+        mPendingPrewarmExecutor = null;
+        mPendingPrewarmMessages = null;
+        final Paint errorTextPaint = new Paint(getErrorTextPaint());
+        final int textWidth = getErrorTextWidth(width);
+        final Alignment alignment = getAlignment();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (String message : messages) {
+                    if (message != null && !message.isEmpty()) {
+                        TextLayoutCache.obtainPrecomputed(message, errorTextPaint, textWidth, alignment);
+                    }
+                }
+            }
+        });
+    }
+
+    private void applyError(@Nullable String errorMessage, @Nullable StaticLayout errorTextLayout) {
         if (errorMessage != null && errorMessage.isEmpty()) {
             errorMessage = null;
         }
+        if (errorMessage == null && mErrorMessage == null) {
+            // Nothing to clear, as on every delete, so the view is not invalidated
+            return;
+        }
 
         if ((mErrorMessage == null || mErrorMessage.isEmpty()) && errorMessage != null) {
             if (mAnimateOnComplete) {
-                mErrorColorAnimator.start();
-                mErrorTextAnimator.start();
+                ensureAnimationTimeline();
+                mErrorColorTrack.start();
+                mErrorTextTrack.start();
             } else {
-                mUnderlinePaint.setColor(mErrorColor);
+                mutableUnderlinePaint().setColor(mErrorColor);
             }
             restoreState();
-            mUnderlinePaint.setStrokeWidth(mUnderlineErrorStrokeWidth);
+            mutableUnderlinePaint().setStrokeWidth(mUnderlineErrorStrokeWidth);
         } else if (mErrorMessage != null && errorMessage == null) {
             if (mAnimateOnComplete) {
-                mErrorColorAnimator.reverse();
-                mErrorTextAnimator.reverse();
+                ensureAnimationTimeline();
+                mErrorColorTrack.reverse();
+                mErrorTextTrack.reverse();
             } else {
-                mUnderlinePaint.setColor(mUnderlineColor);
+                mutableUnderlinePaint().setColor(mUnderlineColor);
             }
-            mUnderlinePaint.setStrokeWidth(mUnderlineStrokeWidth);
+            mutableUnderlinePaint().setStrokeWidth(mUnderlineStrokeWidth);
         }
 
-        mErrorMessage = errorMessage;
-        int width = getWidth();
-        if (width > 0) {
-            mErrorTextLayout = buildErrorTextLayout(width);
-        }
-        requestLayout();
+        updateErrorMessage(errorMessage, errorTextLayout);
+        invalidateStaticLayers();
+        invalidate();
     }
 
     /**
@@ -1202,6 +2341,185 @@ public class CodeInputView extends View {
         setError(null);
     }
 
+    /**
+     * Restores the code, error, editable state and listeners of the view in a single pass, as
+     * needed when the view is recycled, for example in a RecyclerView. Animations are moved to
+     * their final state without running them, any pending complete event or async error is
+     * discarded and the listeners of the view are replaced by the ones of the state. Layout is
+     * only requested if the height of the view changes.
+     *
+     * @param state the state to show
+     */
+    public void bind(@NonNull BindState state) {
+        String code = state.mCode;
+        if (code != null && code.length() > mLengthOfCode) {
+            Log.e(TAG, "Code length is bigger that codes count");
+            code = null;
+        }
+        String errorMessage = state.mError;
+        if (errorMessage != null && errorMessage.isEmpty()) {
+            errorMessage = null;
+        }
+
+        removeCallbacks(mDispatchCompleteRunnable);
+        mPasswordRevealScheduler.clear();
+        releaseValidation();
+        mErrorGeneration++;
+
+        mInputCompletedListeners.set(state.mOnCompleteListeners);
+        mDigitInputListeners.set(state.mOnDigitInputListeners);
+        mCodeChangeListeners.set(state.mOnCodeChangeListeners);
+
+        int previousLength = mCodeBuffer.length();
+        mCodeBuffer.set(code);
+        mEditHistory.clear();
+        notifyCodeChanged(0, previousLength, mCodeBuffer.length());
+        setEditableState(state.mEditable);
+
+        snapAnimations(errorMessage != null);
+        updateErrorMessage(errorMessage, null);
+
+        invalidateStaticLayers();
+        invalidate();
+        restartInputMethod();
+        if (mIsEditable && hasFocus()) {
+            showKeyboard();
+        }
+    }
+
+    /**
+     * Clears the code, error and listeners of the view and makes it editable again, without
+     * running any animation
+     *
+     * @see #bind(BindState)
+     */
+    @SuppressWarnings("unused")
+    public void reset() {
+        bind(new BindState());
+    }
+
+    private void snapAnimations(boolean hasError) {
+        if (mAnimationTimeline != null) {
+            mReductionTrack.snapTo(0);
+            mHideCharactersTrack.snapTo(0);
+            mErrorColorTrack.snapTo(hasError ? 1 : 0);
+            mErrorTextTrack.snapTo(hasError ? 1 : 0);
+        }
+        mReduction = mUnderlineReduction;
+        mCharactersBaseline = 0;
+
+        int underlineColor = hasError ? mErrorColor : mUnderlineColor;
+        float underlineStrokeWidth = hasError ? mUnderlineErrorStrokeWidth : mUnderlineStrokeWidth;
+        if (mUnderlinePaint.getColor() != underlineColor) {
+            mutableUnderlinePaint().setColor(underlineColor);
+        }
+        if (mUnderlinePaint.getStrokeWidth() != underlineStrokeWidth) {
+            mutableUnderlinePaint().setStrokeWidth(underlineStrokeWidth);
+        }
+        if (mErrorTextPaint != null && mErrorTextPaint.getAlpha() != 255) {
+            mutableErrorTextPaint().setAlpha(255);
+        }
+    }
+
+    /**
+     * Changes the error message, requesting a layout only if the height of the error text changes
+     */
+    private void updateErrorMessage(@Nullable String errorMessage, @Nullable StaticLayout errorTextLayout) {
+        boolean changed = !TextUtils.equals(mErrorMessage, errorMessage);
+        int width = getWidth();
+        if (width <= 0) {
+            mErrorMessage = errorMessage;
+            mErrorTextLayout = null;
+            invalidateLayoutInputs();
+            requestLayout();
+        } else {
+            int previousHeight = mErrorTextLayout != null ? mErrorTextLayout.getHeight() : getErrorPlaceholderHeight();
+            mErrorMessage = errorMessage;
+            if (errorMessage == null) {
+                mErrorTextLayout = null;
+            } else if (errorTextLayout != null) {
+                mErrorTextLayout = errorTextLayout;
+            } else {
+                mErrorTextLayout = buildErrorTextLayout(width);
+            }
+            int height = mErrorTextLayout != null ? mErrorTextLayout.getHeight() : getErrorPlaceholderHeight();
+            if (height != previousHeight) {
+                invalidateLayoutInputs();
+                requestLayout();
+            }
+        }
+
+        if (changed) {
+            notifyStateChanged();
+        }
+    }
+
+    /**
+     * State of the view to show with {@link #bind(BindState)}
+     */
+    public static final class BindState {
+        private String mCode;
+        private String mError;
+        private boolean mEditable = true;
+        private final List<OnCodeCompleteListener> mOnCompleteListeners = new ArrayList<>();
+        private final List<OnDigitInputListener> mOnDigitInputListeners = new ArrayList<>();
+        private final List<OnCodeChangeListener> mOnCodeChangeListeners = new ArrayList<>();
+
+        /**
+         * @see #setCode(String)
+         */
+        @NonNull
+        public BindState code(@Nullable String code) {
+            mCode = code;
+            return this;
+        }
+
+        /**
+         * @see #setError(String)
+         */
+        @NonNull
+        public BindState error(@Nullable String error) {
+            mError = error;
+            return this;
+        }
+
+        /**
+         * @see #setEditable(boolean)
+         */
+        @NonNull
+        public BindState editable(boolean editable) {
+            mEditable = editable;
+            return this;
+        }
+
+        /**
+         * @see #addOnCompleteListener(OnCodeCompleteListener)
+         */
+        @NonNull
+        public BindState addOnCompleteListener(@NonNull OnCodeCompleteListener listener) {
+            mOnCompleteListeners.add(listener);
+            return this;
+        }
+
+        /**
+         * @see #addOnDigitInputListener(OnDigitInputListener)
+         */
+        @NonNull
+        public BindState addOnDigitInputListener(@NonNull OnDigitInputListener listener) {
+            mOnDigitInputListeners.add(listener);
+            return this;
+        }
+
+        /**
+         * @see #addOnCodeChangeListener(OnCodeChangeListener)
+         */
+        @NonNull
+        public BindState addOnCodeChangeListener(@NonNull OnCodeChangeListener listener) {
+            mOnCodeChangeListeners.add(listener);
+            return this;
+        }
+    }
+
     /**
      * Get the current input type, could be one of: INPUT_TYPE_TEXT, INPUT_TYPE_NUMERIC
      *
@@ -1219,6 +2537,34 @@ public class CodeInputView extends View {
      */
     public void setInputType(int inputType) {
         mInputType = inputType;
+        mInputAlphabet = getDefaultInputAlphabet(inputType);
+        updateGlyphAtlas();
+
+        invalidate();
+    }
+
+    /**
+     * Get the alphabet of the characters that can be typed
+     *
+     * @return the current input alphabet
+     */
+    @SuppressWarnings("unused")
+    @NonNull
+    public InputAlphabet getInputAlphabet() {
+        return mInputAlphabet;
+    }
+
+    /**
+     * Set the alphabet of the characters that can be typed, like {@link InputAlphabet#hex()}. Typed
+     * characters are normalized by the alphabet before they are added to the code. The input type
+     * still selects the keyboard, and changing it restores its default alphabet.
+     *
+     * @param inputAlphabet the alphabet to use
+     */
+    @SuppressWarnings("unused")
+    public void setInputAlphabet(@NonNull InputAlphabet inputAlphabet) {
+        mInputAlphabet = inputAlphabet;
+        updateGlyphAtlas();
 
         invalidate();
     }
@@ -1243,6 +2589,7 @@ public class CodeInputView extends View {
     @SuppressWarnings("SameParameterValue")
     public void setInPasswordMode(boolean enabled) {
         mInPasswordMode = enabled;
+        updateGlyphAtlas();
 
         invalidate();
     }
@@ -1316,6 +2663,8 @@ public class CodeInputView extends View {
     @SuppressWarnings("unused")
     public void setPasswordCharacter(char passwordCharacter) {
         this.mPasswordCharacter = passwordCharacter;
+        updateGlyphAtlas();
+        invalidate();
     }
 
     /**
@@ -1350,21 +2699,33 @@ public class CodeInputView extends View {
     }
 
     /**
-     * Set the length of the code required. Current code will get reset.
+     * Set the length of the code required. If the current code is longer it is truncated, and
+     * the removed characters are notified to the code change listeners.
      *
      * @param value new length of code
      */
     @SuppressWarnings("SameParameterValue")
     public void setLengthOfCode(int value) {
+        applyLengthOfCode(value);
+        invalidateLayoutInputs();
+        updateGravity(getWidth(), getHeight());
+    }
+
+    private void applyLengthOfCode(int value) {
+        int previousLength = mCodeBuffer.length();
         mLengthOfCode = value;
         initDataStructures();
-        updateGravity(getWidth(), getHeight());
+        int length = mCodeBuffer.length();
+        if (length < previousLength) {
+            notifyCodeChanged(length, previousLength - length, 0);
+            updateInputMethodSelection();
+        }
     }
 
     public void setTextSize(int unit, float size) {
         mTextSize = TypedValue.applyDimension(unit, size, getResources().getDisplayMetrics());
-        mTextPaint.setTextSize(mTextSize);
-        updateHideCharactersAnimator();
+        mutableTextPaint().setTextSize(mTextSize);
+        updateGlyphAtlas();
         updateGravity();
     }
 
@@ -1374,7 +2735,10 @@ public class CodeInputView extends View {
 
     public void setErrorTextSize(int unit, float size) {
         mErrorTextSize = TypedValue.applyDimension(unit, size, getResources().getDisplayMetrics());
-        mErrorTextPaint.setTextSize(mErrorTextSize);
+        mErrorPlaceholderHeight = -1;
+        if (mErrorTextPaint != null) {
+            mutableErrorTextPaint().setTextSize(mErrorTextSize);
+        }
         updateGravity();
     }
 
@@ -1384,15 +2748,10 @@ public class CodeInputView extends View {
 
     public void setTextMarginBottom(int unit, float size) {
         mTextMarginBottom = TypedValue.applyDimension(unit, size, getResources().getDisplayMetrics());
-        updateHideCharactersAnimator();
         updateGravity();
         forceLayout();
     }
 
-    private void updateHideCharactersAnimator() {
-        mHideCharactersAnimator.setObjectValues(0, mTextPaint.getFontSpacing() + mTextMarginBottom);
-    }
-
     public float getTextMarginBottom() {
         return mTextMarginBottom;
     }
@@ -1432,51 +2791,215 @@ public class CodeInputView extends View {
     }
 
     /**
-     * Listener to update the mReduction of the underline bars
+     * Starts a batch of configuration changes. Changes are collected in the returned editor and
+     * only applied when {@link Editor#apply()} is called, recomputing the geometry, animators and
+     * layout once for all of them instead of once per setter.
+     *
+     * @return an editor to collect the changes
      */
-    private class ReductionAnimatorListener implements ValueAnimator.AnimatorUpdateListener {
-
-        public void onAnimationUpdate(ValueAnimator valueanimator) {
-            mReduction = (Float) valueanimator.getAnimatedValue();
-            invalidate();
-        }
+    @NonNull
+    public Editor edit() {
+        return new Editor();
     }
 
     /**
-     * Listener to update the mCharacters
+     * Collects configuration changes to apply to the view all at once
+     *
+     * @see #edit()
      */
-    private class HideCharactersAnimatorListener implements ValueAnimator.AnimatorUpdateListener {
+    public final class Editor {
+        private static final int TEXT_SIZE = 1;
+        private static final int ERROR_TEXT_SIZE = 1 << 1;
+        private static final int TEXT_MARGIN_BOTTOM = 1 << 2;
+        private static final int ERROR_TEXT_MARGIN_TOP = 1 << 3;
+        private static final int ERROR_TEXT_MARGIN_LEFT = 1 << 4;
+        private static final int ERROR_TEXT_MARGIN_RIGHT = 1 << 5;
+        private static final int GRAVITY = 1 << 6;
+        private static final int ERROR_TEXT_GRAVITY = 1 << 7;
+        private static final int LENGTH_OF_CODE = 1 << 8;
+
+        private int mChanges;
+        private float mNewTextSize;
+        private float mNewErrorTextSize;
+        private float mNewTextMarginBottom;
+        private float mNewErrorTextMarginTop;
+        private float mNewErrorTextMarginLeft;
+        private float mNewErrorTextMarginRight;
+        private int mNewGravity;
+        private int mNewErrorTextGravity;
+        private int mNewLengthOfCode;
+
+        private Editor() {
+        }
 
-        public void onAnimationUpdate(ValueAnimator valueanimator) {
-            mCharactersBaseline = (Float) valueanimator.getAnimatedValue();
-            invalidate();
+        /**
+         * @see #setTextSize(int, float)
+         */
+        public Editor textSize(int unit, float size) {
+            mNewTextSize = toPixels(unit, size);
+            mChanges |= TEXT_SIZE;
+            return this;
         }
-    }
 
-    /**
-     * Listener to update color to error color
-     */
-    private class ErrorColorAnimatorListener implements AnimatorUpdateListener {
-        @Override
-        public void onAnimationUpdate(ValueAnimator animation) {
-            int color = (Integer) animation.getAnimatedValue();
-            mUnderlinePaint.setColor(color);
+        /**
+         * @see #setErrorTextSize(int, float)
+         */
+        public Editor errorTextSize(int unit, float size) {
+            mNewErrorTextSize = toPixels(unit, size);
+            mChanges |= ERROR_TEXT_SIZE;
+            return this;
+        }
+
+        /**
+         * @see #setTextMarginBottom(int, float)
+         */
+        public Editor textMarginBottom(int unit, float size) {
+            mNewTextMarginBottom = toPixels(unit, size);
+            mChanges |= TEXT_MARGIN_BOTTOM;
+            return this;
+        }
+
+        /**
+         * @see #setErrorTextMarginTop(int, float)
+         */
+        public Editor errorTextMarginTop(int unit, float size) {
+            mNewErrorTextMarginTop = toPixels(unit, size);
+            mChanges |= ERROR_TEXT_MARGIN_TOP;
+            return this;
+        }
+
+        /**
+         * @see #setErrorTextMarginLeft(int, float)
+         */
+        public Editor errorTextMarginLeft(int unit, float size) {
+            mNewErrorTextMarginLeft = toPixels(unit, size);
+            mChanges |= ERROR_TEXT_MARGIN_LEFT;
+            return this;
+        }
+
+        /**
+         * @see #setErrorTextMarginRight(int, float)
+         */
+        public Editor errorTextMarginRight(int unit, float size) {
+            mNewErrorTextMarginRight = toPixels(unit, size);
+            mChanges |= ERROR_TEXT_MARGIN_RIGHT;
+            return this;
+        }
+
+        /**
+         * @see #setGravity(int)
+         */
+        public Editor gravity(int value) {
+            mNewGravity = value;
+            mChanges |= GRAVITY;
+            return this;
+        }
+
+        /**
+         * @see #setErrorTextGravity(int)
+         */
+        public Editor errorTextGravity(int value) {
+            mNewErrorTextGravity = value;
+            mChanges |= ERROR_TEXT_GRAVITY;
+            return this;
+        }
+
+        /**
+         * @see #setLengthOfCode(int)
+         */
+        public Editor lengthOfCode(int value) {
+            mNewLengthOfCode = value;
+            mChanges |= LENGTH_OF_CODE;
+            return this;
+        }
+
+        /**
+         * Applies all the collected changes to the view
+         */
+        public void apply() {
+            if ((mChanges & TEXT_SIZE) != 0) {
+                mTextSize = mNewTextSize;
+                mutableTextPaint().setTextSize(mTextSize);
+                updateGlyphAtlas();
+            }
+            if ((mChanges & ERROR_TEXT_SIZE) != 0) {
+                mErrorTextSize = mNewErrorTextSize;
+                mErrorPlaceholderHeight = -1;
+                if (mErrorTextPaint != null) {
+                    mutableErrorTextPaint().setTextSize(mErrorTextSize);
+                }
+            }
+            if ((mChanges & TEXT_MARGIN_BOTTOM) != 0) {
+                mTextMarginBottom = mNewTextMarginBottom;
+            }
+            if ((mChanges & ERROR_TEXT_MARGIN_TOP) != 0) {
+                mErrorTextMarginTop = mNewErrorTextMarginTop;
+            }
+            if ((mChanges & ERROR_TEXT_MARGIN_LEFT) != 0) {
+                mErrorTextMarginLeft = mNewErrorTextMarginLeft;
+            }
+            if ((mChanges & ERROR_TEXT_MARGIN_RIGHT) != 0) {
+                mErrorTextMarginRight = mNewErrorTextMarginRight;
+            }
+            if ((mChanges & GRAVITY) != 0) {
+                mGravity = mNewGravity;
+            }
+            if ((mChanges & ERROR_TEXT_GRAVITY) != 0) {
+                mErrorTextGravity = mNewErrorTextGravity;
+            }
+            if ((mChanges & LENGTH_OF_CODE) != 0) {
+                applyLengthOfCode(mNewLengthOfCode);
+            }
+            updateGravity();
+            requestLayout();
             invalidate();
         }
+
+        private float toPixels(int unit, float size) {
+            return TypedValue.applyDimension(unit, size, getResources().getDisplayMetrics());
+        }
     }
 
     /**
-     * Listener to update error text alpha
+     * Updates the state of every animation that changed in the current frame and invalidates
+     * the affected area of the view once
      */
-    private class ErrorTextAnimatorListener implements AnimatorUpdateListener {
+    private class TimelineListener implements AnimationTimeline.Listener {
+
         @Override
-        public void onAnimationUpdate(ValueAnimator animation) {
-            Integer animatedValue = (Integer) animation.getAnimatedValue();
-            mErrorTextPaint.setAlpha(animatedValue);
-            if (mErrorTextLayout != null) {
-                mErrorTextLayout.getPaint().setAlpha(animatedValue);
+        public void onTimelineFrame(@NonNull AnimationTimeline timeline) {
+            boolean codeAreaChanged = false;
+            boolean sectionsChanged = mReductionTrack.isUpdated() || mErrorColorTrack.isUpdated();
+            if (mReductionTrack.isUpdated()) {
+                float maxReduction = mUnderlineWidth / 2;
+                mReduction = mUnderlineReduction + (maxReduction - mUnderlineReduction) * mReductionTrack.getInterpolatedFraction();
+                codeAreaChanged = true;
+            }
+            if (mHideCharactersTrack.isUpdated()) {
+                mCharactersBaseline = (mTextPaint.getFontSpacing() + mTextMarginBottom) * mHideCharactersTrack.getInterpolatedFraction();
+                codeAreaChanged = true;
+            }
+            if (mErrorColorTrack.isUpdated()) {
+                mutableUnderlinePaint().setColor(mErrorColorRamp.getColor(mErrorColorTrack.getInterpolatedFraction()));
+                codeAreaChanged = true;
+            }
+            boolean errorTextChanged = mErrorTextTrack.isUpdated();
+            if (errorTextChanged) {
+                mutableErrorTextPaint().setAlpha((int) (255 * mErrorTextTrack.getInterpolatedFraction()));
+            }
+
+            // The layers are drawn directly while animating, so they are only recorded again
+            // once the animation that changes them ends
+            if ((sectionsChanged && !isAnimatingSections()) || (errorTextChanged && !isAnimatingErrorText())) {
+                invalidateStaticLayers();
+            }
+            if (codeAreaChanged && errorTextChanged) {
+                invalidate();
+            } else if (codeAreaChanged) {
+                invalidateCodeArea();
+            } else if (errorTextChanged) {
+                invalidateErrorText();
             }
-            invalidate();
         }
     }
 }
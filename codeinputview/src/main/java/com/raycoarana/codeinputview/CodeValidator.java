@@ -0,0 +1,20 @@
+package com.raycoarana.codeinputview;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+public interface CodeValidator {
+	/**
+	 * Validates a completed code. It is called from the executor given to
+	 * {@link CodeInputView#setCodeValidator(CodeValidator, java.util.concurrent.Executor)} and
+	 * it could be interrupted if the validation is cancelled.
+	 *
+	 * @param code the code to validate
+	 * @return null if the code is valid, otherwise the error message to show
+	 * @throws Exception if the code could not be validated
+	 */
+	@Nullable
+	@WorkerThread
+	String validate(@NonNull String code) throws Exception;
+}
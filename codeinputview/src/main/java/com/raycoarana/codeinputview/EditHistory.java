@@ -0,0 +1,148 @@
+package com.raycoarana.codeinputview;
+
+import com.raycoarana.codeinputview.data.FixedStack;
+
+/**
+ * Undo and redo history of the edits of a code. Every edit is stored as primitive values in a
+ * bounded stack, so recording and replaying them does not allocate. When the history is full
+ * the oldest edits are discarded whole.
+ *
+ * Each record keeps the type of edit in its lowest bits and the character, or the length of
+ * a replaced code, in the rest. A replaced code is stored as its characters, each one with its
+ * own type, followed by the record, so the record is always found on top of them and the
+ * oldest edit can be told apart at the bottom of the stack.
+ */
+class EditHistory {
+
+    interface Target {
+        CharSequence getCode();
+
+        void insertCharacter(char character);
+
+        void deleteCharacter();
+
+        void replaceCode(char[] code, int length);
+    }
+
+    private static final int HISTORY_DEPTH = 16;
+
+    private static final int TYPE_BITS = 2;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+    private static final int INSERT = 0;
+    private static final int DELETE = 1;
+    private static final int REPLACE = 2;
+    private static final int CODE_CHARACTER = 3;
+
+    private final Target mTarget;
+    private final FixedStack mUndoStack = new FixedStack();
+    private final FixedStack mRedoStack = new FixedStack();
+    private char[] mCode = new char[0];
+
+    EditHistory(Target target) {
+        mTarget = target;
+    }
+
+    /**
+     * Sizes the history for codes of the given length, clearing it
+     */
+    void setCodeLength(int length) {
+        int maxSize = (length + 1) * HISTORY_DEPTH;
+        mUndoStack.setMaxSize(maxSize);
+        mRedoStack.setMaxSize(maxSize);
+        if (mCode.length != length) {
+            mCode = new char[length];
+        }
+    }
+
+    void clear() {
+        mUndoStack.clear();
+        mRedoStack.clear();
+    }
+
+    void recordInsert(char character) {
+        push(mUndoStack, character << TYPE_BITS | INSERT);
+        mRedoStack.clear();
+    }
+
+    void recordDelete(char character) {
+        push(mUndoStack, character << TYPE_BITS | DELETE);
+        mRedoStack.clear();
+    }
+
+    void recordReplace(CharSequence previousCode) {
+        pushCode(mUndoStack, previousCode);
+        mRedoStack.clear();
+    }
+
+    boolean canUndo() {
+        return !mUndoStack.isEmpty();
+    }
+
+    boolean canRedo() {
+        return !mRedoStack.isEmpty();
+    }
+
+    boolean undo() {
+        return revert(mUndoStack, mRedoStack);
+    }
+
+    boolean redo() {
+        return revert(mRedoStack, mUndoStack);
+    }
+
+    /**
+     * Reverts the edit at the top of a stack, pushing the opposite edit into the other one
+     */
+    private boolean revert(FixedStack from, FixedStack to) {
+        if (from.isEmpty()) {
+            return false;
+        }
+
+        int record = from.pop();
+        int value = record >>> TYPE_BITS;
+        switch (record & TYPE_MASK) {
+            case INSERT:
+                mTarget.deleteCharacter();
+                push(to, value << TYPE_BITS | DELETE);
+                return true;
+            case DELETE:
+                mTarget.insertCharacter((char) value);
+                push(to, value << TYPE_BITS | INSERT);
+                return true;
+            default:
+                for (int i = value - 1; i >= 0; i--) {
+                    mCode[i] = (char) (from.pop() >>> TYPE_BITS);
+                }
+                pushCode(to, mTarget.getCode());
+                mTarget.replaceCode(mCode, value);
+                return true;
+        }
+    }
+
+    private static void push(FixedStack stack, int record) {
+        makeRoom(stack, 1);
+        stack.push(record);
+    }
+
+    private static void pushCode(FixedStack stack, CharSequence code) {
+        int length = code.length();
+        makeRoom(stack, length + 1);
+        for (int i = 0; i < length; i++) {
+            stack.push(code.charAt(i) << TYPE_BITS | CODE_CHARACTER);
+        }
+        stack.push(length << TYPE_BITS | REPLACE);
+    }
+
+    /**
+     * Discards the oldest edits until the given number of values fit in the stack, so the
+     * characters of a replaced code are never discarded without its record
+     */
+    private static void makeRoom(FixedStack stack, int count) {
+        while (!stack.isEmpty() && stack.size() + count > stack.getMaxSize()) {
+            int record;
+            do {
+                record = stack.removeBottom();
+            } while ((record & TYPE_MASK) == CODE_CHARACTER);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.raycoarana.codeinputview;
+
+public interface OnCodeChangeListener {
+	/**
+	 * Called once per change of the code, with the range that changed. The code must not be
+	 * kept, as it changes with the view, call toString() to keep a copy.
+	 *
+	 * @param code   the current code
+	 * @param start  position where the change starts
+	 * @param before number of characters removed
+	 * @param count  number of characters inserted
+	 */
+	void onCodeChanged(CharSequence code, int start, int before, int count);
+}
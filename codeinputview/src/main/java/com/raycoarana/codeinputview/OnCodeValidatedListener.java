@@ -0,0 +1,6 @@
+package com.raycoarana.codeinputview;
+
+public interface OnCodeValidatedListener {
+	void onValid(String code);
+	void onInvalid(String code, String errorMessage);
+}
@@ -0,0 +1,5 @@
+package com.raycoarana.codeinputview;
+
+interface OnStateChangeListener {
+	void onStateChanged(CodeInputView view);
+}
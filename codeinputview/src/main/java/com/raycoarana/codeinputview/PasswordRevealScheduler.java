@@ -0,0 +1,100 @@
+package com.raycoarana.codeinputview;
+
+import android.view.View;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of the characters that are revealed while typing in password mode and masks
+ * them once their time is over. A single callback is kept pending for all the sections, so
+ * bursts of typing do not flood the message queue.
+ */
+class PasswordRevealScheduler implements Runnable {
+
+    interface OnSectionMaskedListener {
+        void onSectionMasked(int position);
+    }
+
+    private final View mView;
+    private final OnSectionMaskedListener mListener;
+    private long[] mDeadlines = new long[0];
+    private long mScheduledDeadline;
+
+    PasswordRevealScheduler(View view, OnSectionMaskedListener listener) {
+        mView = view;
+        mListener = listener;
+    }
+
+    void setCount(int count) {
+        clear();
+        if (mDeadlines.length != count) {
+            mDeadlines = new long[count];
+        }
+    }
+
+    /**
+     * Reveals the character of a section for the given time, masking any other revealed section
+     *
+     * @param position      section to reveal
+     * @param durationNanos time the character is shown
+     */
+    void reveal(int position, long durationNanos) {
+        for (int i = 0; i < mDeadlines.length; i++) {
+            if (i != position && mDeadlines[i] != 0) {
+                mDeadlines[i] = 0;
+                mListener.onSectionMasked(i);
+            }
+        }
+        if (position >= 0 && position < mDeadlines.length) {
+            mDeadlines[position] = System.nanoTime() + durationNanos;
+        }
+        schedule(System.nanoTime());
+    }
+
+    /**
+     * Masks all the sections without notifying it
+     */
+    void clear() {
+        for (int i = 0; i < mDeadlines.length; i++) {
+            mDeadlines[i] = 0;
+        }
+        schedule(0);
+    }
+
+    boolean isRevealed(int position, long nowNanos) {
+        return position < mDeadlines.length && mDeadlines[position] > nowNanos;
+    }
+
+    @Override
+    public void run() {
+        mScheduledDeadline = 0;
+        long now = System.nanoTime();
+        for (int i = 0; i < mDeadlines.length; i++) {
+            if (mDeadlines[i] != 0 && mDeadlines[i] <= now) {
+                mDeadlines[i] = 0;
+                mListener.onSectionMasked(i);
+            }
+        }
+        schedule(now);
+    }
+
+    private void schedule(long nowNanos) {
+        long nextDeadline = 0;
+        for (long deadline : mDeadlines) {
+            if (deadline != 0 && (nextDeadline == 0 || deadline < nextDeadline)) {
+                nextDeadline = deadline;
+            }
+        }
+
+        if (nextDeadline == mScheduledDeadline) {
+            return;
+        }
+
+        mView.removeCallbacks(this);
+        mScheduledDeadline = nextDeadline;
+        if (nextDeadline != 0) {
+            long delayMillis = TimeUnit.NANOSECONDS.toMillis(nextDeadline - nowNanos) + 1;
+            mView.postDelayed(this, Math.max(delayMillis, 0));
+        }
+    }
+}
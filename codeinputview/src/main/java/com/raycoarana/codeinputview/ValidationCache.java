@@ -0,0 +1,84 @@
+package com.raycoarana.codeinputview;
+
+import android.os.SystemClock;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the codes rejected by a validator for a limited time, and the validations that are
+ * still running, so completing the same code again does not validate it twice. Only rejections
+ * are cached, as an accepted code could be valid just once. It must be used from the UI thread.
+ *
+ * @param <T> type of the running validations
+ */
+class ValidationCache<T> {
+
+    private final int mMaxSize;
+    private final long mTimeToLiveMillis;
+    private final Map<String, T> mInFlight = new HashMap<>();
+    private final LinkedHashMap<String, Rejection> mRejections;
+
+    ValidationCache(final int maxSize, long timeToLiveMillis) {
+        mMaxSize = maxSize;
+        mTimeToLiveMillis = timeToLiveMillis;
+        mRejections = new LinkedHashMap<String, Rejection>(maxSize, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Rejection> eldest) {
+                return size() > mMaxSize;
+            }
+        };
+    }
+
+    /**
+     * Gets the error message of a code rejected before, if it did not expire
+     *
+     * @param code the code to check
+     * @return the error message, or null if the code is not cached
+     */
+    String getRejection(String code) {
+        Rejection rejection = mRejections.get(code);
+        if (rejection == null) {
+            return null;
+        }
+        if (rejection.mExpirationTime <= SystemClock.elapsedRealtime()) {
+            mRejections.remove(code);
+            return null;
+        }
+        return rejection.mErrorMessage;
+    }
+
+    void putRejection(String code, String errorMessage) {
+        mRejections.put(code, new Rejection(errorMessage, SystemClock.elapsedRealtime() + mTimeToLiveMillis));
+    }
+
+    T getInFlight(String code) {
+        return mInFlight.get(code);
+    }
+
+    void putInFlight(String code, T validation) {
+        mInFlight.put(code, validation);
+    }
+
+    void removeInFlight(String code, T validation) {
+        if (mInFlight.get(code) == validation) {
+            mInFlight.remove(code);
+        }
+    }
+
+    void clear() {
+        mInFlight.clear();
+        mRejections.clear();
+    }
+
+    private static final class Rejection {
+        private final String mErrorMessage;
+        private final long mExpirationTime;
+
+        Rejection(String errorMessage, long expirationTime) {
+            mErrorMessage = errorMessage;
+            mExpirationTime = expirationTime;
+        }
+    }
+}
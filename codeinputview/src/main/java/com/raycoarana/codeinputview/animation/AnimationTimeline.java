@@ -0,0 +1,214 @@
+package com.raycoarana.codeinputview.animation;
+
+import androidx.annotation.NonNull;
+
+import android.annotation.TargetApi;
+import android.os.Build.VERSION;
+import android.os.Build.VERSION_CODES;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives a set of animation tracks from a single frame callback. Every frame all the running
+ * tracks are advanced and the listener is notified once, so overlapping animations result in a
+ * single update per frame.
+ *
+ * Frames are driven by {@link Choreographer} where available, or by a {@link Handler} in older
+ * versions. Track values are plain primitives, so running animations do not allocate. It must
+ * be used from the UI thread only.
+ */
+public final class AnimationTimeline {
+
+    private static final long FALLBACK_FRAME_DELAY_MILLIS = 16;
+
+    /**
+     * Callback invoked once per frame while any track is running
+     */
+    public interface Listener {
+        void onTimelineFrame(@NonNull AnimationTimeline timeline);
+    }
+
+    private final Listener mListener;
+    private final FrameDriver mFrameDriver;
+    private Track[] mTracks = new Track[0];
+    private long mLastFrameTimeNanos;
+    private boolean mIsFrameScheduled;
+
+    public AnimationTimeline(@NonNull Listener listener) {
+        mListener = listener;
+        if (VERSION.SDK_INT >= VERSION_CODES.JELLY_BEAN) {
+            mFrameDriver = new ChoreographerFrameDriver();
+        } else {
+            mFrameDriver = new HandlerFrameDriver();
+        }
+    }
+
+    /**
+     * Adds a new track to the timeline
+     *
+     * @param durationMillis duration of the track
+     * @return the new track
+     */
+    @NonNull
+    public Track newTrack(long durationMillis) {
+        Track track = new Track(TimeUnit.MILLISECONDS.toNanos(durationMillis));
+        Track[] tracks = new Track[mTracks.length + 1];
+        System.arraycopy(mTracks, 0, tracks, 0, mTracks.length);
+        tracks[mTracks.length] = track;
+        mTracks = tracks;
+        return track;
+    }
+
+    private void scheduleFrame() {
+        if (!mIsFrameScheduled) {
+            mIsFrameScheduled = true;
+            mFrameDriver.postFrame();
+        }
+    }
+
+    private void doFrame(long frameTimeNanos) {
+        mIsFrameScheduled = false;
+        long elapsedNanos = mLastFrameTimeNanos == 0 ? 0 : frameTimeNanos - mLastFrameTimeNanos;
+        mLastFrameTimeNanos = frameTimeNanos;
+
+        boolean isRunning = false;
+        for (Track track : mTracks) {
+            track.advance(elapsedNanos);
+            isRunning |= track.isRunning();
+        }
+
+        mListener.onTimelineFrame(this);
+
+        if (isRunning) {
+            scheduleFrame();
+        } else {
+            mLastFrameTimeNanos = 0;
+        }
+    }
+
+    /**
+     * Animation of a fraction from 0 to 1, or from 1 to 0 when reversed
+     */
+    public final class Track {
+        private final long mDurationNanos;
+        private float mFraction;
+        private int mDirection;
+        private boolean mIsUpdated;
+
+        private Track(long durationNanos) {
+            mDurationNanos = durationNanos;
+        }
+
+        /**
+         * Plays the track from the start
+         */
+        public void start() {
+            mFraction = 0;
+            mDirection = 1;
+            scheduleFrame();
+        }
+
+        /**
+         * Plays the track backwards. If it is running it turns back from the current fraction,
+         * otherwise it plays from the end.
+         */
+        public void reverse() {
+            if (mDirection != 0) {
+                mDirection = -mDirection;
+            } else {
+                mFraction = 1;
+                mDirection = -1;
+            }
+            scheduleFrame();
+        }
+
+        /**
+         * Stops the track and moves it to the given fraction, without notifying the listener
+         *
+         * @param fraction 0 to move it to the start, 1 to move it to the end
+         */
+        public void snapTo(float fraction) {
+            mFraction = fraction;
+            mDirection = 0;
+            mIsUpdated = false;
+        }
+
+        public boolean isRunning() {
+            return mDirection != 0;
+        }
+
+        /**
+         * Get if the fraction of the track was updated in the current frame
+         *
+         * @return true if the track was running during the current frame
+         */
+        public boolean isUpdated() {
+            return mIsUpdated;
+        }
+
+        public float getFraction() {
+            return mFraction;
+        }
+
+        /**
+         * Get the fraction with an accelerate-decelerate curve applied, the same as
+         * {@link android.view.animation.AccelerateDecelerateInterpolator}
+         *
+         * @return the interpolated fraction
+         */
+        public float getInterpolatedFraction() {
+            return (float) (Math.cos((mFraction + 1) * Math.PI) / 2.0f) + 0.5f;
+        }
+
+        private void advance(long elapsedNanos) {
+            mIsUpdated = mDirection != 0;
+            if (!mIsUpdated) {
+                return;
+            }
+
+            mFraction += mDirection * (float) elapsedNanos / mDurationNanos;
+            if (mFraction >= 1) {
+                mFraction = 1;
+                mDirection = 0;
+            } else if (mFraction <= 0) {
+                mFraction = 0;
+                mDirection = 0;
+            }
+        }
+    }
+
+    private interface FrameDriver {
+        void postFrame();
+    }
+
+    @TargetApi(VERSION_CODES.JELLY_BEAN)
+    private class ChoreographerFrameDriver implements FrameDriver, Choreographer.FrameCallback {
+
+        @Override
+        public void postFrame() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            AnimationTimeline.this.doFrame(frameTimeNanos);
+        }
+    }
+
+    private class HandlerFrameDriver implements FrameDriver, Runnable {
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void postFrame() {
+            mHandler.postDelayed(this, FALLBACK_FRAME_DELAY_MILLIS);
+        }
+
+        @Override
+        public void run() {
+            doFrame(System.nanoTime());
+        }
+    }
+}
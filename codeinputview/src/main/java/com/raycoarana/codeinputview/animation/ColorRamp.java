@@ -0,0 +1,51 @@
+package com.raycoarana.codeinputview.animation;
+
+/**
+ * Precomputed transition between two colors, so the color for any fraction of an animation
+ * is looked up instead of being evaluated, without boxing or allocating, on every frame.
+ */
+public final class ColorRamp {
+
+    private static final int STEPS = 64;
+
+    private final int[] mColors = new int[STEPS + 1];
+
+    public ColorRamp(int fromColor, int toColor) {
+        update(fromColor, toColor);
+    }
+
+    /**
+     * Recomputes the ramp for a new pair of colors
+     *
+     * @param fromColor color at fraction 0
+     * @param toColor   color at fraction 1
+     */
+    public void update(int fromColor, int toColor) {
+        for (int i = 0; i <= STEPS; i++) {
+            mColors[i] = interpolate(fromColor, toColor, (float) i / STEPS);
+        }
+    }
+
+    /**
+     * Gets the color for the given fraction of the transition
+     *
+     * @param fraction value between 0 and 1
+     * @return the color at that point of the ramp
+     */
+    public int getColor(float fraction) {
+        int step = Math.round(fraction * STEPS);
+        return mColors[Math.max(0, Math.min(STEPS, step))];
+    }
+
+    private static int interpolate(int fromColor, int toColor, float fraction) {
+        int a = interpolateChannel(fromColor >>> 24, toColor >>> 24, fraction);
+        int r = interpolateChannel((fromColor >> 16) & 0xff, (toColor >> 16) & 0xff, fraction);
+        int g = interpolateChannel((fromColor >> 8) & 0xff, (toColor >> 8) & 0xff, fraction);
+        int b = interpolateChannel(fromColor & 0xff, toColor & 0xff, fraction);
+        return a << 24 | r << 16 | g << 8 | b;
+    }
+
+    private static int interpolateChannel(int from, int to, float fraction) {
+        return Math.round(from + (to - from) * fraction);
+    }
+}
@@ -0,0 +1,156 @@
+package com.raycoarana.codeinputview.data;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Fixed capacity buffer with the characters of a code. Appending and deleting the last
+ * character are O(1) and do not allocate, and the String value is cached until the next
+ * change, so reading the code several times only creates one String.
+ */
+public class CodeBuffer implements CharSequence {
+
+    private char[] mChars = new char[0];
+    private int mLength;
+    private String mValue = "";
+
+    /**
+     * Changes the capacity of the buffer, characters that do not fit are discarded
+     *
+     * @param capacity max number of characters
+     */
+    public void setCapacity(int capacity) {
+        if (capacity == mChars.length) {
+            return;
+        }
+
+        char[] chars = new char[capacity];
+        int length = Math.min(mLength, capacity);
+        System.arraycopy(mChars, 0, chars, 0, length);
+        mChars = chars;
+        if (length != mLength) {
+            mLength = length;
+            mValue = null;
+        }
+    }
+
+    public int getCapacity() {
+        return mChars.length;
+    }
+
+    public boolean isFull() {
+        return mLength == mChars.length;
+    }
+
+    /**
+     * Adds a character at the end of the code
+     *
+     * @param c character to add
+     * @return false if the buffer is full
+     */
+    public boolean append(char c) {
+        if (mLength == mChars.length) {
+            return false;
+        }
+
+        mChars[mLength++] = c;
+        mValue = null;
+        return true;
+    }
+
+    /**
+     * Removes the last character of the code
+     *
+     * @return false if the buffer is empty
+     */
+    public boolean deleteLast() {
+        if (mLength == 0) {
+            return false;
+        }
+
+        mLength--;
+        mValue = null;
+        return true;
+    }
+
+    /**
+     * Replaces the code with the given characters
+     *
+     * @param code characters of the new code, or null to clear it
+     * @return false, leaving the buffer unchanged, if the code does not fit
+     */
+    public boolean set(CharSequence code) {
+        int length = code != null ? code.length() : 0;
+        if (length > mChars.length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            mChars[i] = code.charAt(i);
+        }
+        mLength = length;
+        mValue = code instanceof String ? (String) code : null;
+        return true;
+    }
+
+    /**
+     * Replaces the code with the first characters of the given array
+     *
+     * @param code   characters of the new code
+     * @param length number of characters to take
+     * @return false, leaving the buffer unchanged, if the code does not fit
+     */
+    public boolean set(@NonNull char[] code, int length) {
+        if (length > mChars.length) {
+            return false;
+        }
+
+        System.arraycopy(code, 0, mChars, 0, length);
+        mLength = length;
+        mValue = null;
+        return true;
+    }
+
+    public void clear() {
+        mLength = 0;
+        mValue = "";
+    }
+
+    /**
+     * Copies the code into the given array
+     *
+     * @param dest array where to copy the characters, starting at 0
+     * @return number of characters copied
+     */
+    public int getChars(@NonNull char[] dest) {
+        System.arraycopy(mChars, 0, dest, 0, mLength);
+        return mLength;
+    }
+
+    @Override
+    public int length() {
+        return mLength;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= mLength) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + mLength);
+        }
+        return mChars[index];
+    }
+
+    @NonNull
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        if (mValue == null) {
+            mValue = new String(mChars, 0, mLength);
+        }
+        return mValue;
+    }
+}
@@ -1,25 +1,98 @@
 package com.raycoarana.codeinputview.data;
 
-import java.util.Stack;
+/**
+ * Bounded stack of primitive ints backed by a ring buffer. When the stack is full, pushing a
+ * new value discards the oldest one. It does not box values nor allocate once sized, and it is
+ * not synchronized.
+ */
+public class FixedStack {
 
-public class FixedStack<T> extends Stack<T> {
+	private int[] mValues = new int[0];
+	private int mTop;
+	private int mSize;
 
-	int maxSize = 0;
+	/**
+	 * Adds a value at the top of the stack, discarding the bottom one if it is full
+	 *
+	 * @param value value to add
+	 */
+	public void push(int value) {
+		if (mValues.length == 0) {
+			return;
+		}
+
+		mValues[mTop] = value;
+		mTop = (mTop + 1) % mValues.length;
+		if (mSize < mValues.length) {
+			mSize++;
+		}
+	}
 
-	@Override
-	public T push(T object) {
-		if (maxSize > size()) {
-			return super.push(object);
+	/**
+	 * Removes the value at the top of the stack
+	 *
+	 * @return the removed value
+	 * @throws IllegalStateException if the stack is empty
+	 */
+	public int pop() {
+		int value = peek();
+		mTop = (mTop + mValues.length - 1) % mValues.length;
+		mSize--;
+		return value;
+	}
+
+	/**
+	 * @return the value at the top of the stack
+	 * @throws IllegalStateException if the stack is empty
+	 */
+	public int peek() {
+		if (mSize == 0) {
+			throw new IllegalStateException("Stack is empty");
 		}
+		return mValues[(mTop + mValues.length - 1) % mValues.length];
+	}
 
-		return object;
+	/**
+	 * Removes the value at the bottom of the stack, the oldest one
+	 *
+	 * @return the removed value
+	 * @throws IllegalStateException if the stack is empty
+	 */
+	public int removeBottom() {
+		if (mSize == 0) {
+			throw new IllegalStateException("Stack is empty");
+		}
+		int value = mValues[(mTop + mValues.length - mSize) % mValues.length];
+		mSize--;
+		return value;
+	}
+
+	public int size() {
+		return mSize;
+	}
+
+	public boolean isEmpty() {
+		return mSize == 0;
+	}
+
+	public void clear() {
+		mTop = 0;
+		mSize = 0;
 	}
 
 	public int getMaxSize() {
-		return maxSize;
+		return mValues.length;
 	}
 
+	/**
+	 * Changes the max number of values of the stack, clearing it
+	 *
+	 * @param maxSize max number of values
+	 */
 	public void setMaxSize(int maxSize) {
-		this.maxSize = maxSize;
+		if (maxSize != mValues.length) {
+			mValues = new int[maxSize];
+		}
+		clear();
 	}
 }
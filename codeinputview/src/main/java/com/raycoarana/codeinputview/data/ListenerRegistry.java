@@ -0,0 +1,68 @@
+package com.raycoarana.codeinputview.data;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Copy-on-write set of listeners. Every change swaps the array of listeners by a new one, so
+ * dispatching an event is an indexed loop over the current array, without allocating, and
+ * listeners can be added or removed while an event is being dispatched.
+ *
+ * @param <T> type of the listeners
+ */
+public class ListenerRegistry<T> {
+
+    private final T[] mEmpty;
+    private T[] mListeners;
+
+    /**
+     * @param empty an empty array of the type of the listeners
+     */
+    public ListenerRegistry(@NonNull T[] empty) {
+        mEmpty = empty;
+        mListeners = empty;
+    }
+
+    public void add(@NonNull T listener) {
+        T[] listeners = Arrays.copyOf(mListeners, mListeners.length + 1);
+        listeners[mListeners.length] = listener;
+        mListeners = listeners;
+    }
+
+    public void remove(T listener) {
+        for (int i = 0; i < mListeners.length; i++) {
+            if (mListeners[i].equals(listener)) {
+                T[] listeners = Arrays.copyOf(mListeners, mListeners.length - 1);
+                System.arraycopy(mListeners, i + 1, listeners, i, mListeners.length - i - 1);
+                mListeners = listeners;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Replaces all the listeners at once
+     *
+     * @param listeners the new listeners
+     */
+    public void set(@NonNull Collection<? extends T> listeners) {
+        mListeners = listeners.isEmpty() ? mEmpty : listeners.toArray(mEmpty);
+    }
+
+    public void clear() {
+        mListeners = mEmpty;
+    }
+
+    /**
+     * Gets the current listeners. The array is never modified, changes to the registry
+     * replace it, so it can be iterated while listeners are added or removed.
+     *
+     * @return the current listeners, must not be modified
+     */
+    @NonNull
+    public T[] getListeners() {
+        return mListeners;
+    }
+}
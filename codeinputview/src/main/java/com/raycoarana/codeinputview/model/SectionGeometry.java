@@ -0,0 +1,90 @@
+package com.raycoarana.codeinputview.model;
+
+/**
+ * Geometry of the underline of every code section, stored as a flat array of points
+ * (fromX, fromY, toX, toY per section) in the format expected by
+ * {@link android.graphics.Canvas#drawLines(float[], int, int, android.graphics.Paint)}.
+ *
+ * Buffers are only reallocated when the number of sections grows, so updating the layout
+ * or building the lines to draw does not allocate.
+ */
+public class SectionGeometry {
+
+    private static final int POINTS_PER_SECTION = 4;
+
+    private float[] mPoints = new float[0];
+    private float[] mLines = new float[0];
+    private int mCount;
+
+    public void setCount(int count) {
+        if (mPoints.length < count * POINTS_PER_SECTION) {
+            mPoints = new float[count * POINTS_PER_SECTION];
+            mLines = new float[count * POINTS_PER_SECTION];
+        }
+        mCount = count;
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Places the sections one next to the other in a single row
+     *
+     * @param fromX        horizontal position where the first section starts
+     * @param y            vertical position of the underlines
+     * @param sectionWidth width of every section
+     */
+    public void layout(float fromX, float y, float sectionWidth) {
+        for (int i = 0; i < mCount; i++) {
+            int offset = i * POINTS_PER_SECTION;
+            float sectionFromX = fromX + sectionWidth * (float) i;
+            mPoints[offset] = sectionFromX;
+            mPoints[offset + 1] = y;
+            mPoints[offset + 2] = sectionFromX + sectionWidth;
+            mPoints[offset + 3] = y;
+        }
+    }
+
+    public float getFromX(int position) {
+        return mPoints[position * POINTS_PER_SECTION];
+    }
+
+    public float getToX(int position) {
+        return mPoints[position * POINTS_PER_SECTION + 2];
+    }
+
+    public float getCenterX(int position) {
+        return (getFromX(position) + getToX(position)) / 2;
+    }
+
+    public float getY() {
+        return mCount > 0 ? mPoints[1] : 0;
+    }
+
+    /**
+     * Builds the points of the underlines to draw, shortening both ends of every section
+     *
+     * @param reduction       amount to remove from both ends of every section
+     * @param skippedPosition section to leave out of the lines, or -1 to include all of them
+     * @return number of values written into {@link #getLines()}
+     */
+    public int buildLines(float reduction, int skippedPosition) {
+        int count = 0;
+        for (int i = 0; i < mCount; i++) {
+            if (i == skippedPosition) {
+                continue;
+            }
+            int offset = i * POINTS_PER_SECTION;
+            mLines[count++] = mPoints[offset] + reduction;
+            mLines[count++] = mPoints[offset + 1];
+            mLines[count++] = mPoints[offset + 2] - reduction;
+            mLines[count++] = mPoints[offset + 3];
+        }
+        return count;
+    }
+
+    public float[] getLines() {
+        return mLines;
+    }
+}
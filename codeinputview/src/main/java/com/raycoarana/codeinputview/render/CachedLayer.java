@@ -0,0 +1,69 @@
+package com.raycoarana.codeinputview.render;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+import android.graphics.Canvas;
+import android.graphics.RecordingCanvas;
+import android.graphics.RenderNode;
+import android.os.Build.VERSION_CODES;
+
+/**
+ * Display list that is recorded once and replayed on every draw until it is invalidated,
+ * so static parts of a view are not re-recorded when other parts of it change.
+ */
+@RequiresApi(api = VERSION_CODES.Q)
+public final class CachedLayer {
+
+    /**
+     * Draws the content of a layer when it needs to be recorded again
+     */
+    public interface Recorder {
+        void record(@NonNull Canvas canvas);
+    }
+
+    private final RenderNode mRenderNode;
+    private boolean mIsValid;
+
+    public CachedLayer(@NonNull String name) {
+        mRenderNode = new RenderNode(name);
+    }
+
+    /**
+     * Marks the content of the layer as outdated, it will be recorded again on the next draw
+     */
+    public void invalidate() {
+        mIsValid = false;
+    }
+
+    /**
+     * Draws the layer, recording it first if it was invalidated or the size changed
+     *
+     * @param canvas   a hardware accelerated canvas
+     * @param width    width of the layer
+     * @param height   height of the layer
+     * @param recorder draws the content of the layer when needs to be recorded
+     */
+    public void draw(@NonNull Canvas canvas, int width, int height, @NonNull Recorder recorder) {
+        if (!mIsValid || !mRenderNode.hasDisplayList() ||
+                mRenderNode.getWidth() != width || mRenderNode.getHeight() != height) {
+            mRenderNode.setPosition(0, 0, width, height);
+            RecordingCanvas recordingCanvas = mRenderNode.beginRecording(width, height);
+            try {
+                recorder.record(recordingCanvas);
+            } finally {
+                mRenderNode.endRecording();
+            }
+            mIsValid = true;
+        }
+        canvas.drawRenderNode(mRenderNode);
+    }
+
+    /**
+     * Discards the recorded display list to free its memory
+     */
+    public void release() {
+        mRenderNode.discardDisplayList();
+        mIsValid = false;
+    }
+}
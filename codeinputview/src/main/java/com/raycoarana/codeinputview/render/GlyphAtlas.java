@@ -0,0 +1,208 @@
+package com.raycoarana.codeinputview.render;
+
+import androidx.annotation.NonNull;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.util.LruCache;
+
+import java.util.Arrays;
+
+/**
+ * Set of glyphs rasterized once into a single bitmap, so they can be drawn with
+ * {@link Canvas#drawBitmap} instead of shaping the text on every frame.
+ *
+ * Glyphs are copied pixel by pixel to whole pixel positions, without filtering, so they look the
+ * same as the text drawn with {@link Canvas#drawText} at that position.
+ *
+ * Atlases are shared between all the views that use the same typeface, text size,
+ * text color and glyph set. The cache is bounded in bytes, evicted atlases are recycled and
+ * the whole cache is released when the system asks the application to trim its memory. They
+ * must be used from the UI thread only.
+ */
+public final class GlyphAtlas {
+
+    private static final int MAX_CACHE_BYTES = 1024 * 1024;
+    private static final int GLYPH_PADDING = 1;
+
+    private static final LruCache<Key, GlyphAtlas> sCache = new LruCache<Key, GlyphAtlas>(MAX_CACHE_BYTES) {
+        @Override
+        protected int sizeOf(Key key, GlyphAtlas atlas) {
+            return atlas.mBitmap.getByteCount();
+        }
+
+        @Override
+        protected void entryRemoved(boolean evicted, Key key, GlyphAtlas oldAtlas, GlyphAtlas newAtlas) {
+            oldAtlas.mBitmap.recycle();
+        }
+    };
+    private static final ComponentCallbacks2 sTrimMemoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            trimMemory(level);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+
+        @Override
+        public void onLowMemory() {
+            trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        }
+    };
+    private static boolean sIsTrimMemoryRegistered;
+
+    private final Bitmap mBitmap;
+    private final char[] mGlyphs;
+    private final int mCellWidth;
+    private final int mBaseline;
+    private final Rect mSourceRect = new Rect();
+    private final Rect mDestinationRect = new Rect();
+
+    private GlyphAtlas(Paint textPaint, char[] glyphs) {
+        Paint paint = new Paint(textPaint);
+        paint.setTextAlign(Paint.Align.CENTER);
+        Paint.FontMetrics fontMetrics = paint.getFontMetrics();
+
+        float maxGlyphWidth = 0;
+        for (int i = 0; i < glyphs.length; i++) {
+            maxGlyphWidth = Math.max(maxGlyphWidth, paint.measureText(glyphs, i, 1));
+        }
+
+        mGlyphs = glyphs;
+        int cellWidth = (int) Math.ceil(maxGlyphWidth) + 2 * GLYPH_PADDING;
+        // Even width keeps the glyphs centered on a whole pixel, as drawText does for whole positions
+        mCellWidth = cellWidth + (cellWidth & 1);
+        mBaseline = (int) Math.ceil(-fontMetrics.ascent) + GLYPH_PADDING;
+        int cellHeight = mBaseline + (int) Math.ceil(fontMetrics.descent) + GLYPH_PADDING;
+        mBitmap = Bitmap.createBitmap(mCellWidth * glyphs.length, cellHeight, Bitmap.Config.ARGB_8888);
+
+        Canvas canvas = new Canvas(mBitmap);
+        for (int i = 0; i < glyphs.length; i++) {
+            canvas.drawText(glyphs, i, 1, mCellWidth * i + mCellWidth / 2f, mBaseline, paint);
+        }
+    }
+
+    /**
+     * Gets the atlas for the given paint configuration and glyphs, rasterizing it if no other view
+     * is already using it.
+     *
+     * @param context   context used to listen to the memory trim events of the application
+     * @param textPaint paint used to draw the glyphs
+     * @param glyphs    characters to include in the atlas
+     * @return the shared atlas
+     */
+    @NonNull
+    public static GlyphAtlas obtain(@NonNull Context context, @NonNull Paint textPaint, @NonNull char[] glyphs) {
+        if (!sIsTrimMemoryRegistered) {
+            context.getApplicationContext().registerComponentCallbacks(sTrimMemoryCallbacks);
+            sIsTrimMemoryRegistered = true;
+        }
+
+        Key key = new Key(textPaint.getTypeface(), textPaint.getTextSize(), textPaint.getColor(), glyphs);
+        GlyphAtlas atlas = sCache.get(key);
+        if (atlas == null) {
+            atlas = new GlyphAtlas(textPaint, glyphs.clone());
+            sCache.put(new Key(key.mTypeface, key.mTextSize, key.mTextColor, atlas.mGlyphs), atlas);
+        }
+        return atlas;
+    }
+
+    /**
+     * Releases the cached atlases depending on the memory trim level. Views still using a released
+     * atlas draw their characters as text until they obtain a new one.
+     *
+     * @param level memory trim level, as in {@link ComponentCallbacks2#onTrimMemory(int)}
+     */
+    public static void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            sCache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            sCache.trimToSize(sCache.maxSize() / 2);
+        }
+    }
+
+    /**
+     * Get if the atlas was released from the cache, so it can not be drawn anymore
+     *
+     * @return true if the atlas was released
+     */
+    public boolean isRecycled() {
+        return mBitmap.isRecycled();
+    }
+
+    /**
+     * Draws a glyph horizontally centered at the given position, snapped to whole pixels
+     *
+     * @return false if the character is not part of the atlas or the atlas was released, so
+     * nothing was drawn
+     */
+    public boolean draw(Canvas canvas, char character, float centerX, float baselineY) {
+        int index = indexOf(character);
+        if (index < 0 || mBitmap.isRecycled()) {
+            return false;
+        }
+
+        int cellLeft = mCellWidth * index;
+        mSourceRect.set(cellLeft, 0, cellLeft + mCellWidth, mBitmap.getHeight());
+        int left = Math.round(centerX) - mCellWidth / 2;
+        int top = Math.round(baselineY) - mBaseline;
+        mDestinationRect.set(left, top, left + mCellWidth, top + mBitmap.getHeight());
+        canvas.drawBitmap(mBitmap, mSourceRect, mDestinationRect, null);
+        return true;
+    }
+
+    private int indexOf(char character) {
+        for (int i = 0; i < mGlyphs.length; i++) {
+            if (mGlyphs[i] == character) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Key {
+        private final Typeface mTypeface;
+        private final float mTextSize;
+        private final int mTextColor;
+        private final char[] mGlyphs;
+
+        Key(Typeface typeface, float textSize, int textColor, char[] glyphs) {
+            mTypeface = typeface;
+            mTextSize = textSize;
+            mTextColor = textColor;
+            mGlyphs = glyphs;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mTypeface == key.mTypeface &&
+                    Float.compare(mTextSize, key.mTextSize) == 0 &&
+                    mTextColor == key.mTextColor &&
+                    Arrays.equals(mGlyphs, key.mGlyphs);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mTypeface != null ? mTypeface.hashCode() : 0;
+            result = 31 * result + Float.floatToIntBits(mTextSize);
+            result = 31 * result + mTextColor;
+            result = 31 * result + Arrays.hashCode(mGlyphs);
+            return result;
+        }
+    }
+}
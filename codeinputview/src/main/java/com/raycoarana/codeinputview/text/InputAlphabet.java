@@ -0,0 +1,364 @@
+package com.raycoarana.codeinputview.text;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Set of characters accepted by a code input, with an optional normalization of each accepted
+ * character, like folding lower case letters to upper case or full-width digits to ASCII digits.
+ *
+ * The alphabet is compiled once by its {@link Builder} into a bitmap of the accepted characters
+ * of the BMP and a two-level table with their normalized values, so checking and normalizing a
+ * character is a table lookup, without regular expressions or {@link Character} calls.
+ */
+public final class InputAlphabet {
+
+    /**
+     * Value returned by {@link #normalize(char)} for a character that is not accepted
+     */
+    public static final char NONE = '\0';
+
+    private static final int PAGE_SHIFT = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int PAGE_COUNT = (Character.MAX_VALUE + 1) >>> PAGE_SHIFT;
+    private static final int MAX_ENUMERATED_CHARACTERS = 64;
+
+    // First code point of each block of decimal digits of the BMP, up to Unicode 13
+    private static final char[] DIGIT_ZEROS = {
+            '\u0030', '\u0660', '\u06F0', '\u07C0', '\u0966', '\u09E6', '\u0A66', '\u0AE6',
+            '\u0B66', '\u0BE6', '\u0C66', '\u0CE6', '\u0D66', '\u0DE6', '\u0E50', '\u0ED0',
+            '\u0F20', '\u1040', '\u1090', '\u17E0', '\u1810', '\u1946', '\u19D0', '\u1A80',
+            '\u1A90', '\u1B50', '\u1BB0', '\u1C40', '\u1C50', '\uA620', '\uA8D0', '\uA900',
+            '\uA9D0', '\uA9F0', '\uAA50', '\uABF0', '\uFF10'
+    };
+
+    /**
+     * Any decimal digit, normalized to the ASCII digits
+     */
+    @NonNull
+    public static InputAlphabet numeric() {
+        return NumericHolder.INSTANCE;
+    }
+
+    /**
+     * Any letter or decimal digit, as they are typed
+     */
+    @NonNull
+    public static InputAlphabet letterOrDigit() {
+        return LetterOrDigitHolder.INSTANCE;
+    }
+
+    /**
+     * Hexadecimal digits, normalized to upper case and ASCII digits
+     */
+    @NonNull
+    public static InputAlphabet hex() {
+        return HexHolder.INSTANCE;
+    }
+
+    /**
+     * Crockford's Base32, normalized to upper case and ASCII digits. I and L are read as 1 and
+     * O as 0, as the encoding does.
+     */
+    @NonNull
+    public static InputAlphabet crockfordBase32() {
+        return CrockfordBase32Holder.INSTANCE;
+    }
+
+    // Presets are only built on first use. Numeric and hex are built from explicit ranges, as
+    // they are used by the default style, the others scan the whole BMP to compile their tables
+
+    private static final class NumericHolder {
+        static final InputAlphabet INSTANCE = new Builder()
+                .addFoldedDigits()
+                .build();
+    }
+
+    private static final class LetterOrDigitHolder {
+        static final InputAlphabet INSTANCE = new Builder()
+                .addLetters()
+                .addDigits()
+                .build();
+    }
+
+    private static final class HexHolder {
+        static final InputAlphabet INSTANCE = new Builder()
+                .addFoldedDigits()
+                .addRange('A', 'F')
+                .mapRange('a', 'f', 'A')
+                .build();
+    }
+
+    private static final class CrockfordBase32Holder {
+        static final InputAlphabet INSTANCE = new Builder()
+                .addCharacters("0123456789ABCDEFGHJKMNPQRSTVWXYZ")
+                .map('I', '1')
+                .map('L', '1')
+                .map('O', '0')
+                .foldDigits()
+                .foldCase()
+                .build();
+    }
+
+    private final long[] mAccepted;
+    private final char[][] mNormalized;
+    private final String mCharacters;
+
+    private InputAlphabet(long[] accepted, char[][] normalized, @Nullable String characters) {
+        mAccepted = accepted;
+        mNormalized = normalized;
+        mCharacters = characters;
+    }
+
+    public boolean isAccepted(char character) {
+        return (mAccepted[character >>> 6] & (1L << character)) != 0;
+    }
+
+    /**
+     * Normalizes a character of the alphabet
+     *
+     * @param character the character to normalize
+     * @return the normalized character, or {@link #NONE} if it is not accepted
+     */
+    public char normalize(char character) {
+        if ((mAccepted[character >>> 6] & (1L << character)) == 0) {
+            return NONE;
+        }
+        char[] page = mNormalized[character >>> PAGE_SHIFT];
+        return page == null ? character : page[character & PAGE_MASK];
+    }
+
+    /**
+     * Gets the characters that the alphabet normalizes to, when they are few enough to
+     * prepare them in advance, like the glyphs of the digits
+     *
+     * @return the normalized characters, or null if there are too many
+     */
+    @Nullable
+    public String getCharacters() {
+        return mCharacters;
+    }
+
+    /**
+     * Builds an {@link InputAlphabet}. Characters outside of the BMP can not be typed in a
+     * code input, so they are not supported.
+     */
+    public static final class Builder {
+
+        private final long[] mAccepted = new long[(Character.MAX_VALUE + 1) >>> 6];
+        private final char[][] mNormalized = new char[PAGE_COUNT][];
+        private boolean mFoldDigits;
+        private boolean mFoldCase;
+
+        @NonNull
+        public Builder addCharacter(char character) {
+            if (character != NONE) {
+                mAccepted[character >>> 6] |= 1L << character;
+            }
+            return this;
+        }
+
+        @NonNull
+        public Builder addCharacters(@NonNull CharSequence characters) {
+            for (int i = 0; i < characters.length(); i++) {
+                addCharacter(characters.charAt(i));
+            }
+            return this;
+        }
+
+        /**
+         * Adds a range of characters
+         *
+         * @param first first character of the range
+         * @param last  last character of the range, included
+         */
+        @NonNull
+        public Builder addRange(char first, char last) {
+            for (int character = first; character <= last; character++) {
+                addCharacter((char) character);
+            }
+            return this;
+        }
+
+        /**
+         * Adds all the decimal digits, of any script
+         */
+        @NonNull
+        public Builder addDigits() {
+            for (int character = 0; character <= Character.MAX_VALUE; character++) {
+                if (Character.isDigit(character)) {
+                    addCharacter((char) character);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Adds all the letters, of any script
+         */
+        @NonNull
+        public Builder addLetters() {
+            for (int character = 0; character <= Character.MAX_VALUE; character++) {
+                if (Character.isLetter(character)) {
+                    addCharacter((char) character);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Accepts a character and normalizes it to another one
+         *
+         * @param character the character to accept
+         * @param target    the character it is normalized to
+         */
+        @NonNull
+        public Builder map(char character, char target) {
+            addCharacter(character);
+            setNormalized(character, target);
+            return this;
+        }
+
+        /**
+         * Accepts a range of characters and normalizes each one to the character at the same
+         * offset of the target range
+         */
+        private Builder mapRange(char first, char last, char firstTarget) {
+            for (int character = first; character <= last; character++) {
+                map((char) character, (char) (firstTarget + character - first));
+            }
+            return this;
+        }
+
+        /**
+         * Accepts the decimal digits of the blocks in {@link #DIGIT_ZEROS} normalized to the ASCII
+         * digits, the same as {@link #foldDigits()} with all the ASCII digits but without
+         * scanning the whole BMP. Digits unknown to the platform are skipped.
+         */
+        private Builder addFoldedDigits() {
+            for (char zero : DIGIT_ZEROS) {
+                for (int digit = 0; digit <= 9; digit++) {
+                    char character = (char) (zero + digit);
+                    if (Character.isDigit(character) && Character.digit(character, 10) == digit) {
+                        map(character, (char) ('0' + digit));
+                    }
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Accepts the decimal digits of any script when their ASCII digit is accepted, and
+         * normalizes them to it, so full-width or Arabic-Indic digits can be typed. Digits are
+         * looked up in the whole BMP when the alphabet is built.
+         */
+        @NonNull
+        public Builder foldDigits() {
+            mFoldDigits = true;
+            return this;
+        }
+
+        /**
+         * Accepts the other case of the accepted letters, and normalizes it to the accepted one.
+         * Letters are looked up in the whole BMP when the alphabet is built.
+         */
+        @NonNull
+        public Builder foldCase() {
+            mFoldCase = true;
+            return this;
+        }
+
+        @NonNull
+        public InputAlphabet build() {
+            Builder folded = new Builder();
+            System.arraycopy(mAccepted, 0, folded.mAccepted, 0, mAccepted.length);
+            for (int i = 0; i < PAGE_COUNT; i++) {
+                folded.mNormalized[i] = mNormalized[i] != null ? mNormalized[i].clone() : null;
+            }
+            if (mFoldDigits) {
+                applyDigitFolding(folded);
+            }
+            if (mFoldCase) {
+                applyCaseFolding(folded);
+            }
+            return new InputAlphabet(folded.mAccepted, folded.mNormalized, enumerateCharacters(folded));
+        }
+
+        private static void applyDigitFolding(Builder folded) {
+            for (int character = 0; character <= Character.MAX_VALUE; character++) {
+                int digit = Character.digit(character, 10);
+                if (digit < 0 || !Character.isDigit(character) || folded.isAccepted((char) character)) {
+                    continue;
+                }
+                char ascii = (char) ('0' + digit);
+                if (folded.isAccepted(ascii)) {
+                    folded.map((char) character, folded.getNormalized(ascii));
+                }
+            }
+        }
+
+        private static void applyCaseFolding(Builder folded) {
+            for (int character = 0; character <= Character.MAX_VALUE; character++) {
+                if (folded.isAccepted((char) character)) {
+                    continue;
+                }
+                char upperCase = (char) Character.toUpperCase(character);
+                char lowerCase = (char) Character.toLowerCase(character);
+                if (upperCase != character && folded.isAccepted(upperCase)) {
+                    folded.map((char) character, folded.getNormalized(upperCase));
+                } else if (lowerCase != character && folded.isAccepted(lowerCase)) {
+                    folded.map((char) character, folded.getNormalized(lowerCase));
+                }
+            }
+        }
+
+        @Nullable
+        private static String enumerateCharacters(Builder folded) {
+            Builder characters = new Builder();
+            StringBuilder builder = new StringBuilder();
+            for (int word = 0; word < folded.mAccepted.length; word++) {
+                // Only the accepted bits of each word are visited, so empty words cost nothing
+                long accepted = folded.mAccepted[word];
+                while (accepted != 0) {
+                    char character = (char) ((word << 6) | Long.numberOfTrailingZeros(accepted));
+                    accepted &= accepted - 1;
+                    char normalized = folded.getNormalized(character);
+                    if (!characters.isAccepted(normalized)) {
+                        if (builder.length() == MAX_ENUMERATED_CHARACTERS) {
+                            return null;
+                        }
+                        characters.addCharacter(normalized);
+                        builder.append(normalized);
+                    }
+                }
+            }
+            return builder.toString();
+        }
+
+        private boolean isAccepted(char character) {
+            return (mAccepted[character >>> 6] & (1L << character)) != 0;
+        }
+
+        private char getNormalized(char character) {
+            char[] page = mNormalized[character >>> PAGE_SHIFT];
+            return page == null ? character : page[character & PAGE_MASK];
+        }
+
+        private void setNormalized(char character, char target) {
+            int index = character >>> PAGE_SHIFT;
+            char[] page = mNormalized[index];
+            if (page == null) {
+                if (character == target) {
+                    return;
+                }
+                page = new char[PAGE_SIZE];
+                for (int i = 0; i < PAGE_SIZE; i++) {
+                    page[i] = (char) ((index << PAGE_SHIFT) | i);
+                }
+                mNormalized[index] = page;
+            }
+            page[character & PAGE_MASK] = target;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.raycoarana.codeinputview.text;
+
+import androidx.annotation.NonNull;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.os.Build.VERSION;
+import android.os.Build.VERSION_CODES;
+import android.text.Layout;
+import android.text.Layout.Alignment;
+import android.text.PrecomputedText;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.LruCache;
+
+/**
+ * Bounded LRU cache of text layouts shared by all the views, so measuring the same
+ * message with the same configuration only happens once.
+ *
+ * Layouts are keyed by text, width, alignment, text size and typeface, but not by color.
+ * As the paint of a cached layout could be shared, set its color just before drawing it.
+ */
+public final class TextLayoutCache {
+
+    private static final int MAX_CACHED_LAYOUTS = 32;
+
+    private static final LruCache<Key, StaticLayout> sCache = new LruCache<>(MAX_CACHED_LAYOUTS);
+
+    private TextLayoutCache() {
+    }
+
+    /**
+     * Gets the layout of a text, building it if it is not already cached. It is safe to call
+     * this method from any thread.
+     *
+     * @param text      the text to layout
+     * @param paint     paint with the text size and typeface to use
+     * @param width     width available for the text
+     * @param alignment alignment of the text
+     * @return the layout of the text
+     */
+    @NonNull
+    public static StaticLayout obtain(@NonNull CharSequence text, @NonNull Paint paint, int width, @NonNull Alignment alignment) {
+        Key key = new Key(text.toString(), width, alignment, paint.getTextSize(), paint.getTypeface());
+        StaticLayout layout = sCache.get(key);
+        if (layout == null) {
+            layout = build(text, new TextPaint(paint), width, alignment);
+            sCache.put(key, layout);
+        }
+        return layout;
+    }
+
+    /**
+     * Same as {@link #obtain(CharSequence, Paint, int, Alignment)} but, when the layout is not
+     * cached, the text is measured with {@link PrecomputedText} where available. Meant to be
+     * called from a background thread, so the UI thread only needs to draw the result.
+     *
+     * @param text      the text to layout
+     * @param paint     paint with the text size and typeface to use, must not be modified while
+     *                  the layout is built
+     * @param width     width available for the text
+     * @param alignment alignment of the text
+     * @return the layout of the text
+     */
+    @NonNull
+    public static StaticLayout obtainPrecomputed(@NonNull String text, @NonNull Paint paint, int width, @NonNull Alignment alignment) {
+        Key key = new Key(text, width, alignment, paint.getTextSize(), paint.getTypeface());
+        StaticLayout layout = sCache.get(key);
+        if (layout == null) {
+            TextPaint textPaint = new TextPaint(paint);
+            CharSequence measuredText = text;
+            if (VERSION.SDK_INT >= VERSION_CODES.P) {
+                PrecomputedText.Params params = new PrecomputedText.Params.Builder(textPaint)
+                        .setBreakStrategy(Layout.BREAK_STRATEGY_SIMPLE)
+                        .setHyphenationFrequency(Layout.HYPHENATION_FREQUENCY_NONE)
+                        .build();
+                measuredText = PrecomputedText.create(text, params);
+            }
+            layout = build(measuredText, textPaint, width, alignment);
+            sCache.put(key, layout);
+        }
+        return layout;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static StaticLayout build(CharSequence text, TextPaint textPaint, int width, Alignment alignment) {
+        if (VERSION.SDK_INT >= VERSION_CODES.M) {
+            return StaticLayout.Builder.obtain(text, 0, text.length(), textPaint, width)
+                    .setAlignment(alignment)
+                    .build();
+        } else {
+            return new StaticLayout(
+                    text,
+                    textPaint,
+                    width,
+                    alignment,
+                    1.0f,
+                    0,
+                    true
+            );
+        }
+    }
+
+    private static final class Key {
+        private final String mText;
+        private final int mWidth;
+        private final Alignment mAlignment;
+        private final float mTextSize;
+        private final Typeface mTypeface;
+
+        Key(String text, int width, Alignment alignment, float textSize, Typeface typeface) {
+            mText = text;
+            mWidth = width;
+            mAlignment = alignment;
+            mTextSize = textSize;
+            mTypeface = typeface;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mWidth == key.mWidth &&
+                    Float.compare(mTextSize, key.mTextSize) == 0 &&
+                    mAlignment == key.mAlignment &&
+                    mTypeface == key.mTypeface &&
+                    mText.equals(key.mText);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mText.hashCode();
+            result = 31 * result + mWidth;
+            result = 31 * result + mAlignment.hashCode();
+            result = 31 * result + Float.floatToIntBits(mTextSize);
+            result = 31 * result + (mTypeface != null ? mTypeface.hashCode() : 0);
+            return result;
+        }
+    }
+}
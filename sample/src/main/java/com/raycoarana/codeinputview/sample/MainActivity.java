@@ -1,5 +1,6 @@
 package com.raycoarana.codeinputview.sample;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import android.os.Bundle;
 import android.os.Handler;
@@ -9,12 +10,17 @@ import android.widget.Toast;
 
 import com.raycoarana.codeinputview.CodeInputView;
 import com.raycoarana.codeinputview.CodeInputView.OnEditorActionListener;
+import com.raycoarana.codeinputview.CodeValidator;
 import com.raycoarana.codeinputview.OnCodeCompleteListener;
 import com.raycoarana.codeinputview.OnDigitInputListener;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 public class MainActivity extends AppCompatActivity {
 
 	private Handler mHandler = new Handler();
+	private ExecutorService mValidationExecutor = Executors.newSingleThreadExecutor();
 
 	@Override
 	protected void onCreate(Bundle savedInstanceState) {
@@ -22,21 +28,15 @@ public class MainActivity extends AppCompatActivity {
 		setContentView(R.layout.activity_main);
 
 		final CodeInputView otherCodeInput = (CodeInputView) findViewById(R.id.pairing);
-		otherCodeInput.addOnCompleteListener(new OnCodeCompleteListener() {
+		otherCodeInput.setValidationTimeout(5000);
+		otherCodeInput.setCodeValidator(new CodeValidator() {
 			@Override
-			public void onCompleted(String code) {
-				mHandler.postDelayed(new Runnable() {
-					@Override
-					public void run() {
-						//Make the input enable again so the user can change it
-						otherCodeInput.setEditable(true);
-
-						//Show error
-						otherCodeInput.setError("Your code is incorrect");
-					}
-				}, 1000);
+			public String validate(@NonNull String code) throws Exception {
+				//Simulate a request to a server, the error message is shown in the view
+				Thread.sleep(1000);
+				return "Your code is incorrect";
 			}
-		});
+		}, mValidationExecutor);
 
 		final CodeInputView codeInputView = (CodeInputView) findViewById(R.id.with_complete_callback);
 
@@ -94,4 +94,10 @@ public class MainActivity extends AppCompatActivity {
 			}
 		});
 	}
+
+	@Override
+	protected void onDestroy() {
+		super.onDestroy();
+		mValidationExecutor.shutdownNow();
+	}
 }